@@ -1,16 +1,25 @@
 package com.example.shop.config;
 
+import com.example.shop.security.BoundedPasswordEncoder;
+import com.example.shop.security.PasswordHashing;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 @Configuration
 public class AppConfig {
 
+    // haszowanie haseł (patrz PasswordHashing) na osobnej, ograniczonej puli - logowania nie zabierają CPU
+    // i wątków pozostałym endpointom
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder(
+            @Value("${auth.password.algorithm:bcrypt}") String algorithm,
+            @Value("${auth.password.bcrypt-strength:10}") int strength,
+            @Value("${auth.password.pbkdf2-iterations:310000}") int pbkdf2Iterations,
+            @Value("${auth.password.threads:0}") int threads,
+            @Value("${auth.password.queue-capacity:64}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(PasswordHashing.delegatingEncoder(algorithm, strength, pbkdf2Iterations),
+                poolSize, queueCapacity);
     }
 }
-
@@ -0,0 +1,63 @@
+package com.example.shop.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@EnableCaching
+@Configuration
+public class CacheConfig {
+
+    public static final String PRODUCTS_CACHE = "products";
+    public static final String PRODUCT_LIST_CACHE = "productList";
+    public static final String PRINCIPALS_CACHE = "principals";
+
+    // Maksymalna liczba produktów trzymanych w cache
+    @Value("${products.cache.max-size:10000}")
+    private long maxSize;
+
+    // Górna granica "nieświeżości" danych (m.in. stockQuantity) - wpis wygasa najpóźniej po tym czasie,
+    // nawet jeśli jakaś zmiana ominęła inwalidację (np. zmiana z innej instancji aplikacji)
+    @Value("${products.cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    // Cache użytkowników uwierzytelnianych przez JwtAuthenticationFilter
+    @Value("${auth.principal-cache.max-size:10000}")
+    private long principalMaxSize;
+
+    @Value("${auth.principal-cache.ttl-seconds:60}")
+    private long principalTtlSeconds;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAllowNullValues(false);
+
+        cacheManager.registerCustomCache(PRODUCTS_CACHE, Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build());
+
+        // cała lista produktów to jeden wpis
+        cacheManager.registerCustomCache(PRODUCT_LIST_CACHE, Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build());
+
+        cacheManager.registerCustomCache(PRINCIPALS_CACHE, Caffeine.newBuilder()
+                .maximumSize(principalMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(principalTtlSeconds))
+                .recordStats()
+                .build());
+
+        return cacheManager;
+    }
+}
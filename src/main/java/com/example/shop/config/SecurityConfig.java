@@ -52,6 +52,9 @@ public class SecurityConfig {
                         // tworzenie produktów dostępne tylko dla roli ADMIN:
                         .requestMatchers(HttpMethod.POST, "/api/products").hasRole("ADMIN")
 
+                        // endpointy administracyjne (np. statystyki cache)
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
+
                         // pobieranie produktów dostępne dla zalogowanych (np. hasAnyRole("USER","ADMIN"))
                         // .requestMatchers(HttpMethod.GET, "/api/products").authenticated()
 
@@ -0,0 +1,64 @@
+package com.example.shop.controller;
+
+import java.util.Locale;
+
+/**
+ * Nagłówek Accept-Encoding to lista "kodowanie;q=waga". Kodowanie z q=0 to odmowa,
+ * a "*" obejmuje kodowania niewymienione wprost.
+ */
+final class AcceptEncoding {
+
+    private AcceptEncoding() {
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        return accepts(acceptEncoding, "gzip", "x-gzip");
+    }
+
+    static boolean acceptsDeflate(String acceptEncoding) {
+        return accepts(acceptEncoding, "deflate");
+    }
+
+    // kodowanie i jego aliasy (np. gzip, x-gzip), porównywane bez wielkości liter
+    static boolean accepts(String acceptEncoding, String... codings) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean listed = null;
+        boolean wildcard = false;
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            boolean accepted = quality(parts) > 0;
+            if (matches(name, codings)) {
+                listed = accepted;
+            } else if (name.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return listed != null ? listed : wildcard;
+    }
+
+    private static boolean matches(String name, String[] codings) {
+        for (String candidate : codings) {
+            if (candidate.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].trim().toLowerCase(Locale.ROOT);
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
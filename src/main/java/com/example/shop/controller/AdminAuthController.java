@@ -0,0 +1,36 @@
+package com.example.shop.controller;
+
+import com.example.shop.security.BoundedPasswordEncoder;
+import com.example.shop.security.UsernameBloomFilter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Podgląd puli haszowania haseł i filtra nazw użytkowników (tylko ADMIN - patrz SecurityConfig, /api/admin/**).
+ */
+@RestController
+@RequestMapping("/api/admin/auth")
+public class AdminAuthController {
+
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final UsernameBloomFilter usernameFilter;
+
+    public AdminAuthController(BoundedPasswordEncoder passwordEncoder, UsernameBloomFilter usernameFilter) {
+        this.passwordEncoder = passwordEncoder;
+        this.usernameFilter = usernameFilter;
+    }
+
+    @GetMapping("/password-hashing/stats")
+    public ResponseEntity<Map<String, Object>> getPasswordHashingStats() {
+        return ResponseEntity.ok(passwordEncoder.getStats());
+    }
+
+    @GetMapping("/username-filter/stats")
+    public ResponseEntity<Map<String, Object>> getUsernameFilterStats() {
+        return ResponseEntity.ok(usernameFilter.getStats());
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.shop.controller;
+
+import com.example.shop.service.OrderExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Eksport zamówień dla analityki (tylko ADMIN - patrz SecurityConfig, /api/admin/**).
+ */
+@RestController
+@RequestMapping("/api/admin/orders")
+public class AdminOrderController {
+
+    private final OrderExportService orderExportService;
+
+    public AdminOrderController(OrderExportService orderExportService) {
+        this.orderExportService = orderExportService;
+    }
+
+    /**
+     * Wszystkie zamówienia (opcjonalnie z zakresu [from, to)) jako NDJSON, pisane strumieniowo do odpowiedzi.
+     * Z nagłówkiem "Accept-Encoding: gzip" (bez q=0) odpowiedź jest kompresowana (np. curl --compressed).
+     */
+    @GetMapping("/export")
+    public void exportOrders(
+            @RequestParam(value = "from", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (AcceptEncoding.acceptsGzip(acceptEncoding)) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            try (OutputStream out = new GZIPOutputStream(response.getOutputStream(), 8192)) {
+                orderExportService.exportNdjson(out, from, to);
+            }
+        } else {
+            orderExportService.exportNdjson(response.getOutputStream(), from, to);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.shop.controller;
+
+import com.example.shop.dto.ProductImportResultDto;
+import com.example.shop.service.ProductImportService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Import katalogu produktów (tylko ADMIN - patrz SecurityConfig, /api/admin/**).
+ */
+@RestController
+@RequestMapping("/api/admin/products")
+public class AdminProductController {
+
+    private final ProductImportService productImportService;
+
+    public AdminProductController(ProductImportService productImportService) {
+        this.productImportService = productImportService;
+    }
+
+    /**
+     * CSV z nagłówkiem (Content-Type: text/csv) - body czytane strumieniowo, wynik z błędami per wiersz.
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<ProductImportResultDto> importCsv(InputStream body) throws IOException {
+        return ResponseEntity.ok(productImportService.importCsv(body));
+    }
+
+    /**
+     * NDJSON (Content-Type: application/x-ndjson) - jeden produkt na linię.
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ProductImportResultDto> importNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(productImportService.importNdjson(body));
+    }
+}
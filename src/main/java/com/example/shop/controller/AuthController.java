@@ -6,9 +6,12 @@ import com.example.shop.dto.RegisterRequest;
 import com.example.shop.entity.RefreshToken;
 import com.example.shop.entity.User;
 import com.example.shop.security.JwtService;
+import com.example.shop.security.TokenDenyList;
 import com.example.shop.service.AuthService;
 import com.example.shop.service.RefreshTokenService;
+import io.jsonwebtoken.JwtException;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -24,11 +27,14 @@ public class AuthController {
     private final AuthService authService;
     private final JwtService jwtService;  // wstrzykujemy nasz JwtService
     private final RefreshTokenService refreshTokenService;
+    private final TokenDenyList tokenDenyList;
 
-    public AuthController(AuthService authService, JwtService jwtService, RefreshTokenService refreshTokenService) {
+    public AuthController(AuthService authService, JwtService jwtService, RefreshTokenService refreshTokenService,
+                          TokenDenyList tokenDenyList) {
         this.authService = authService;
         this.jwtService = jwtService;
         this.refreshTokenService = refreshTokenService;
+        this.tokenDenyList = tokenDenyList;
     }
 
     @PostMapping("/register")
@@ -50,7 +56,7 @@ public class AuthController {
         User user = authService.login(loginRequest);
 
         // Generujemy access token (krótkie życie, np. 15m) - robisz to w JwtService
-        String accessToken = jwtService.generateToken(user.getUsername());
+        String accessToken = jwtService.generateToken(user);
 
         // Generujemy refresh token (w bazie) - robimy to w refreshTokenService
         RefreshToken refreshToken = refreshTokenService.createRefreshToken(user);
@@ -64,13 +70,24 @@ public class AuthController {
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<String> logout(@RequestBody Map<String, String> requestBody) {
+    public ResponseEntity<String> logout(@RequestBody Map<String, String> requestBody,
+                                         @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false)
+                                         String authorization) {
         String refreshToken = requestBody.get("refreshToken");
         if (refreshToken == null) {
             return ResponseEntity.badRequest().body("Missing refreshToken");
         }
 
         refreshTokenService.deleteRefreshToken(refreshToken);
+
+        // access token tej sesji trafia na listę odwołanych (po jti) - pozostałe sesje usera działają dalej
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            try {
+                tokenDenyList.revoke(jwtService.parseToken(authorization.substring(7)));
+            } catch (JwtException ex) {
+                // nieważny / wygasły token i tak nie przejdzie przez JwtAuthenticationFilter
+            }
+        }
         return ResponseEntity.ok("Refresh token invalidated");
     }
 
@@ -93,7 +110,7 @@ public class AuthController {
         User user = validRefresh.getUser();
 
         // Generujemy nowy access token
-        String newAccessToken = jwtService.generateToken(user.getUsername());
+        String newAccessToken = jwtService.generateToken(user);
 
         // (opcjonalnie) Od razu generujemy nowy refresh token?
         // RefreshToken newRefresh = refreshTokenService.createRefreshToken(user);
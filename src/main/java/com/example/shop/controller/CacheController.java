@@ -0,0 +1,48 @@
+package com.example.shop.controller;
+
+import com.example.shop.event.ProductCacheInvalidator;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Podgląd statystyk cache (tylko ADMIN - patrz SecurityConfig).
+ */
+@RestController
+@RequestMapping("/api/admin/cache")
+public class CacheController {
+
+    private final CacheManager cacheManager;
+    private final ProductCacheInvalidator productCacheInvalidator;
+
+    public CacheController(CacheManager cacheManager, ProductCacheInvalidator productCacheInvalidator) {
+        this.cacheManager = cacheManager;
+        this.productCacheInvalidator = productCacheInvalidator;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            if (cacheManager.getCache(name) instanceof CaffeineCache caffeineCache) {
+                CacheStats stats = caffeineCache.getNativeCache().stats();
+                Map<String, Object> cacheStats = new LinkedHashMap<>();
+                cacheStats.put("size", caffeineCache.getNativeCache().estimatedSize());
+                cacheStats.put("hits", stats.hitCount());
+                cacheStats.put("misses", stats.missCount());
+                cacheStats.put("evictions", stats.evictionCount());
+                cacheStats.put("hitRate", stats.hitRate());
+                result.put(name, cacheStats);
+            }
+        }
+        result.put("productInvalidations", productCacheInvalidator.getInvalidationCount());
+        return ResponseEntity.ok(result);
+    }
+}
@@ -1,28 +1,37 @@
 package com.example.shop.controller;
 
+import com.example.shop.dto.BulkOrderResultDto;
 import com.example.shop.dto.OrderDto;
+import com.example.shop.dto.OrderPageDto;
 import com.example.shop.dto.OrderRequest;
 import com.example.shop.entity.Order;
 import com.example.shop.entity.User;
 import com.example.shop.mapper.OrderMapper;
 import com.example.shop.service.AuthService;
+import com.example.shop.service.OrderImportService;
 import com.example.shop.service.OrderService;
 import jakarta.validation.Valid;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderImportService orderImportService;
     private final AuthService authService;
 
-    public OrderController(OrderService orderService, AuthService authService) {
+    public OrderController(OrderService orderService, OrderImportService orderImportService,
+                           AuthService authService) {
         this.orderService = orderService;
+        this.orderImportService = orderImportService;
         this.authService = authService;
     }
 
@@ -36,6 +45,16 @@ public class OrderController {
         return ResponseEntity.ok(orderDto);
     }
 
+    /**
+     * Import hurtowy: body to tablica JSON albo NDJSON (jedno zamówienie na linię) z OrderRequestami.
+     * Body jest czytane strumieniowo, zamówienia składane porcjami - odpowiedź zawiera wynik każdego zamówienia.
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BulkOrderResultDto> importOrders(InputStream body) {
+        User currentUser = authService.getCurrentUser();
+        return ResponseEntity.ok(orderImportService.importOrders(currentUser, body));
+    }
+
     @PostMapping("/cart")
     public ResponseEntity<OrderDto> createOrder() {
         User currentUser = authService.getCurrentUser(); // pobranie realnego usera z kontekstu
@@ -46,16 +65,27 @@ public class OrderController {
         return ResponseEntity.ok(orderDto);
     }
 
+    /**
+     * Bez parametrów zwraca wszystkie zamówienia zalogowanego usera.
+     * Z parametrami page/size/from/to zwraca jedną stronę, np.
+     * GET /api/orders?page=0&size=20&from=2025-01-01T00:00:00&to=2025-02-01T00:00:00
+     */
     @GetMapping
-    public ResponseEntity<List<OrderDto>> getAllOrdersForUser() {
+    public ResponseEntity<?> getAllOrdersForUser(
+            @RequestParam(value = "from", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "page", required = false) Integer page,
+            @RequestParam(value = "size", required = false) Integer size) {
         User currentUser = authService.getCurrentUser();
-        List<Order> orders = orderService.getAllOrdersForUser(currentUser);
 
-        // mapujemy listę encji do listy DTO
-        List<OrderDto> dtos = orders.stream()
-                .map(OrderMapper::toDto)
-                .collect(Collectors.toList());
+        if (from != null || to != null || page != null || size != null) {
+            Slice<OrderDto> slice = orderService.getOrdersForUser(currentUser, from, to, page, size);
+            return ResponseEntity.ok(new OrderPageDto(slice.getContent(), slice.getNumber(), slice.getSize(), slice.hasNext()));
+        }
 
-        return ResponseEntity.ok(dtos);
+        // projekcja prosto do DTO - bez mapowania encji
+        return ResponseEntity.ok(orderService.getOrderHistoryForUser(currentUser));
     }
 }
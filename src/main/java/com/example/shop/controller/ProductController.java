@@ -1,30 +1,93 @@
 package com.example.shop.controller;
 
+import com.example.shop.dto.ProductPageDto;
+import com.example.shop.dto.ProductSearchResultDto;
+import com.example.shop.dto.ProductSuggestionDto;
 import com.example.shop.entity.Product;
+import com.example.shop.search.ProductAutocomplete;
+import com.example.shop.search.ProductSearchIndex;
+import com.example.shop.service.ProductPayloadCache;
 import com.example.shop.service.ProductService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductPayloadCache productPayloadCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductAutocomplete productAutocomplete;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductPayloadCache productPayloadCache,
+                             ProductSearchIndex productSearchIndex, ProductAutocomplete productAutocomplete) {
         this.productService = productService;
+        this.productPayloadCache = productPayloadCache;
+        this.productSearchIndex = productSearchIndex;
+        this.productAutocomplete = productAutocomplete;
     }
 
+    /**
+     * Bez parametrów zwraca cały katalog (jak dotychczas).
+     * Z parametrem cursor i/lub size zwraca jedną stronę + nextCursor do pobrania kolejnej.
+     *
+     * Odpowiedzi GET mają ETag (wersja katalogu / @Version produktu) - przy zgodnym If-None-Match
+     * Spring odsyła 304 Not Modified bez serializacji body.
+     * Cała lista i pojedynczy produkt idą z gotowych bajtów (ProductPayloadCache), skompresowanych gzipem,
+     * jeśli klient go akceptuje.
+     */
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        return ResponseEntity.ok(productService.getAllProducts());
+    public ResponseEntity<?> getAllProducts(@RequestParam(value = "cursor", required = false) String cursor,
+                                            @RequestParam(value = "size", required = false) Integer size,
+                                            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                            String acceptEncoding) {
+        if (cursor == null && size == null) {
+            return serve(productPayloadCache.forList(productService.getAllProducts()), acceptEncoding);
+        }
+        ProductPageDto page = productService.getProductsPage(cursor, size);
+        long pageVersion = 31 * ProductService.catalogVersion(page.getItems()) + Objects.hashCode(page.getNextCursor());
+        return conditional("pg" + Long.toHexString(pageVersion), page);
+    }
+
+    /**
+     * Wyszukiwanie po nazwie (każde słowo zapytania jako prefiks, np. "lad usb") z filtrem ceny.
+     * Obsługiwane z indeksu w pamięci (ProductSearchIndex), bez zapytania do bazy.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ProductSearchResultDto> searchProducts(
+            @RequestParam(value = "q", required = false) String query,
+            @RequestParam(value = "minPrice", required = false) Double minPrice,
+            @RequestParam(value = "maxPrice", required = false) Double maxPrice,
+            @RequestParam(value = "size", required = false) Integer size) {
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new RuntimeException("Cena minimalna nie może być większa od maksymalnej");
+        }
+        return ResponseEntity.ok(productSearchIndex.search(query, minPrice, maxPrice, size));
+    }
+
+    /**
+     * Podpowiedzi do pola wyszukiwania (wywoływane przy każdym naciśnięciu klawisza):
+     * nazwy zaczynające się od q, od najczęściej kupowanych.
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProductSuggestionDto>> suggestProducts(
+            @RequestParam(value = "q", required = false) String prefix,
+            @RequestParam(value = "size", required = false) Integer size) {
+        return ResponseEntity.ok(productAutocomplete.suggest(prefix, size));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable Long id) {
-        return ResponseEntity.ok(productService.getProductById(id));
+    public ResponseEntity<byte[]> getProductById(@PathVariable Long id,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                                 String acceptEncoding) {
+        return serve(productPayloadCache.forProduct(productService.getProductById(id)), acceptEncoding);
     }
 
     @PostMapping
@@ -48,4 +111,31 @@ public class ProductController {
         Product updated = productService.updateStockQuantity(id, newQuantity);
         return ResponseEntity.ok(updated);
     }
+
+    // no-cache = klient może trzymać odpowiedź, ale przed użyciem musi ją zweryfikować (If-None-Match)
+    private static <T> ResponseEntity<T> conditional(String version, T body) {
+        return ResponseEntity.ok()
+                .eTag("\"" + version + "\"")
+                .cacheControl(CacheControl.noCache())
+                .body(body);
+    }
+
+    // wersje skompresowane mają własne ETagi (inna reprezentacja = inne bajty); gzip ma pierwszeństwo przed deflate
+    private static ResponseEntity<byte[]> serve(ProductPayloadCache.Payload payload, String acceptEncoding) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (payload.getGzip() != null && AcceptEncoding.acceptsGzip(acceptEncoding)) {
+            return response.eTag("\"" + payload.getVersion() + "-gz\"")
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(payload.getGzip());
+        }
+        if (payload.getDeflate() != null && AcceptEncoding.acceptsDeflate(acceptEncoding)) {
+            return response.eTag("\"" + payload.getVersion() + "-df\"")
+                    .header(HttpHeaders.CONTENT_ENCODING, "deflate")
+                    .body(payload.getDeflate());
+        }
+        return response.eTag("\"" + payload.getVersion() + "\"").body(payload.getJson());
+    }
 }
@@ -0,0 +1,34 @@
+package com.example.shop.controller;
+
+import com.example.shop.dto.MessageDto;
+import com.example.shop.entity.User;
+import com.example.shop.service.UserService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Zarządzanie kontami użytkowników (tylko ADMIN - patrz SecurityConfig, /api/admin/**).
+ */
+@RestController
+@RequestMapping("/api/admin/users")
+public class UserController {
+
+    private final UserService userService;
+
+    public UserController(UserService userService) {
+        this.userService = userService;
+    }
+
+    @PatchMapping("/{id}/role")
+    public ResponseEntity<MessageDto> changeRole(@PathVariable Long id, @RequestParam("role") String role) {
+        User user = userService.changeRole(id, role);
+        return ResponseEntity.ok(new MessageDto("Zmieniono rolę użytkownika " + user.getUsername()
+                + " na " + user.getRole()));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
+        userService.deleteUser(id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.shop.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Wynik jednego zamówienia z importu hurtowego (index = pozycja w przesłanej tablicy / linii NDJSON, od 0).
+ * status: CREATED, REJECTED (np. brak stanu, błąd walidacji) albo FAILED (cała porcja się wycofała).
+ */
+@Getter
+@Setter
+public class BulkOrderLineResult {
+
+    public static final String CREATED = "CREATED";
+    public static final String REJECTED = "REJECTED";
+    public static final String FAILED = "FAILED";
+
+    private int index;
+    private String status;
+    private Long orderId;
+    private String error;
+
+    public BulkOrderLineResult() {
+    }
+
+    public BulkOrderLineResult(int index, String status, Long orderId, String error) {
+        this.index = index;
+        this.status = status;
+        this.orderId = orderId;
+        this.error = error;
+    }
+
+    public static BulkOrderLineResult created(Long orderId) {
+        return new BulkOrderLineResult(0, CREATED, orderId, null);
+    }
+
+    public static BulkOrderLineResult rejected(String error) {
+        return new BulkOrderLineResult(0, REJECTED, null, error);
+    }
+}
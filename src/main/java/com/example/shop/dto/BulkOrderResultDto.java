@@ -0,0 +1,29 @@
+package com.example.shop.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Podsumowanie importu hurtowego zamówień. error jest ustawiony, gdy strumień był uszkodzony -
+ * wtedy results zawiera tylko zamówienia przeczytane przed błędem.
+ */
+@Getter
+@Setter
+public class BulkOrderResultDto {
+    private int created;
+    private int rejected;
+    private String error;
+    private List<BulkOrderLineResult> results;
+
+    public BulkOrderResultDto() {
+    }
+
+    public BulkOrderResultDto(int created, int rejected, String error, List<BulkOrderLineResult> results) {
+        this.created = created;
+        this.rejected = rejected;
+        this.error = error;
+        this.results = results;
+    }
+}
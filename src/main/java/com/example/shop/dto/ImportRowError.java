@@ -0,0 +1,14 @@
+package com.example.shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Błąd jednego wiersza importu (line = numer linii w pliku, od 1).
+ */
+@Getter
+@AllArgsConstructor
+public class ImportRowError {
+    private long line;
+    private String error;
+}
@@ -0,0 +1,24 @@
+package com.example.shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Jeden wiersz zapytania projekcyjnego historii zamówień (zamówienie x pozycja).
+ * Tworzony bezpośrednio przez JPQL "SELECT new ...", bez encji w persistence context.
+ * Dla zamówienia bez pozycji pola produktu/pozycji są null.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderHistoryRow {
+    private Long orderId;
+    private LocalDateTime createdAt;
+    private Long userId;
+    private String username;
+    private Long productId;
+    private String productName;
+    private Double priceAtOrderTime;
+    private Integer quantity;
+}
@@ -0,0 +1,28 @@
+package com.example.shop.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Jedna strona historii zamówień użytkownika.
+ */
+@Getter
+@Setter
+public class OrderPageDto {
+    private List<OrderDto> items;
+    private int page;
+    private int size;
+    private boolean hasNext;
+
+    public OrderPageDto() {
+    }
+
+    public OrderPageDto(List<OrderDto> items, int page, int size, boolean hasNext) {
+        this.items = items;
+        this.page = page;
+        this.size = size;
+        this.hasNext = hasNext;
+    }
+}
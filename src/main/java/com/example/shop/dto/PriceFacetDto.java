@@ -0,0 +1,15 @@
+package com.example.shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Liczba wyników wyszukiwania w przedziale cen [from, to); to == null = bez górnej granicy.
+ */
+@Getter
+@AllArgsConstructor
+public class PriceFacetDto {
+    private double from;
+    private Double to;
+    private long count;
+}
@@ -0,0 +1,20 @@
+package com.example.shop.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Podsumowanie importu produktów. errors zawiera najwyżej products.import.max-reported-errors pozycji
+ * (failed liczy wszystkie błędne wiersze).
+ */
+@Getter
+@Setter
+public class ProductImportResultDto {
+    private long inserted;
+    private long updated;
+    private long failed;
+    private List<ImportRowError> errors = new ArrayList<>();
+}
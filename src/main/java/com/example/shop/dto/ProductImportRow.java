@@ -0,0 +1,17 @@
+package com.example.shop.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Jeden produkt z importu hurtowego (wiersz CSV albo linia NDJSON).
+ * Z id - aktualizacja istniejącego produktu, bez id - nowy produkt.
+ */
+@Getter
+@Setter
+public class ProductImportRow {
+    private Long id;
+    private String name;
+    private Double price;
+    private Integer stockQuantity;
+}
@@ -0,0 +1,14 @@
+package com.example.shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Sama nazwa produktu (bez ładowania encji) - do budowy indeksu podpowiedzi.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductNameRow {
+    private Long id;
+    private String name;
+}
@@ -0,0 +1,26 @@
+package com.example.shop.dto;
+
+import com.example.shop.entity.Product;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Jedna strona katalogu produktów (stronicowanie kursorowe po id).
+ * nextCursor == null oznacza, że to ostatnia strona.
+ */
+@Getter
+@Setter
+public class ProductPageDto {
+    private List<Product> items;
+    private String nextCursor;
+
+    public ProductPageDto() {
+    }
+
+    public ProductPageDto(List<Product> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Suma sztuk per produkt (np. z wygasłych rezerwacji) - z zapytania "SELECT new ... GROUP BY".
+ */
+@Getter
+@AllArgsConstructor
+public class ProductQuantityRow {
+    private Long productId;
+    private Long quantity;
+}
@@ -0,0 +1,23 @@
+package com.example.shop.dto;
+
+import com.example.shop.entity.Product;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Wynik wyszukiwania produktów: najlepsze trafienia (items), liczba wszystkich trafień (total)
+ * i liczby trafień w przedziałach cen (priceFacets - liczone bez filtra ceny, żeby klient widział inne przedziały).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchResultDto {
+    private List<Product> items;
+    private long total;
+    private List<PriceFacetDto> priceFacets;
+}
@@ -0,0 +1,14 @@
+package com.example.shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Jedna podpowiedź nazwy produktu (autocomplete).
+ */
+@Getter
+@AllArgsConstructor
+public class ProductSuggestionDto {
+    private Long id;
+    private String name;
+}
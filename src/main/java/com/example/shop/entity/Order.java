@@ -11,7 +11,10 @@ import java.util.Set;
 @Getter
 @Setter
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // historia zamówień usera: WHERE user_id = ? [AND created_at BETWEEN ...] ORDER BY created_at
+        @Index(name = "ix_orders_user_created", columnList = "user_id, createdAt")
+})
 public class Order {
 
     @Id
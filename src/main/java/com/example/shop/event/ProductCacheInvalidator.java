@@ -0,0 +1,75 @@
+package com.example.shop.event;
+
+import com.example.shop.config.CacheConfig;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Usuwa z cache produkty, które się zmieniły.
+ * Działa dopiero po commicie transakcji, żeby równoległy odczyt nie wrzucił do cache starej wartości
+ * (bez transakcji - od razu, dzięki fallbackExecution).
+ */
+@Component
+public class ProductCacheInvalidator {
+
+    private final CacheManager cacheManager;
+
+    // liczba jawnych inwalidacji (uzupełnia statystyki Caffeine, które liczą tylko eviction z rozmiaru/TTL)
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ProductCacheInvalidator(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        Cache products = cacheManager.getCache(CacheConfig.PRODUCTS_CACHE);
+        if (products != null) {
+            if (event.getProductId() == null) {
+                products.clear();
+            } else {
+                products.evict(event.getProductId());
+            }
+        }
+
+        // każda zmiana produktu unieważnia listę
+        Cache productList = cacheManager.getCache(CacheConfig.PRODUCT_LIST_CACHE);
+        if (productList != null) {
+            productList.clear();
+        }
+        invalidations.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductImport(ProductImportEvent event) {
+        for (String name : new String[]{CacheConfig.PRODUCTS_CACHE, CacheConfig.PRODUCT_LIST_CACHE}) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+        invalidations.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockReleased(ProductStockReleasedEvent event) {
+        Cache products = cacheManager.getCache(CacheConfig.PRODUCTS_CACHE);
+        if (products != null) {
+            event.getProductIds().forEach(products::evict);
+        }
+
+        Cache productList = cacheManager.getCache(CacheConfig.PRODUCT_LIST_CACHE);
+        if (productList != null) {
+            productList.clear();
+        }
+        invalidations.incrementAndGet();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.get();
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.shop.event;
+
+import lombok.Getter;
+
+/**
+ * Zdarzenie publikowane po każdej zmianie produktu (utworzenie, usunięcie, zmiana stanu magazynowego).
+ * productId == null oznacza "zmieniło się wiele produktów". Import i zwolnienie rezerwacji mają własne
+ * zdarzenia (ProductImportEvent, ProductStockReleasedEvent z listą id).
+ */
+@Getter
+public class ProductChangedEvent {
+    private final Long productId;
+
+    public ProductChangedEvent(Long productId) {
+        this.productId = productId;
+    }
+}
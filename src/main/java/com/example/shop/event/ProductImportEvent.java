@@ -0,0 +1,17 @@
+package com.example.shop.event;
+
+import lombok.Getter;
+
+/**
+ * Zdarzenie importu katalogu: po commicie każdej paczki (finished == false) i raz po całym imporcie
+ * (finished == true). Cache czyścimy po każdej paczce, a indeksy w pamięci przebudowujemy raz - na końcu,
+ * zamiast ładować cały katalog po każdej paczce.
+ */
+@Getter
+public class ProductImportEvent {
+    private final boolean finished;
+
+    public ProductImportEvent(boolean finished) {
+        this.finished = finished;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.shop.event;
+
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * Zdarzenie publikowane po zwolnieniu wygasłych rezerwacji - tym produktom wrócił stan magazynowy.
+ * Nazwa i cena się nie zmieniły, więc słuchacze mogą odświeżyć tylko te produkty zamiast całego katalogu.
+ */
+@Getter
+public class ProductStockReleasedEvent {
+    private final Set<Long> productIds;
+
+    public ProductStockReleasedEvent(Set<Long> productIds) {
+        this.productIds = Set.copyOf(productIds);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.shop.event;
+
+import lombok.Getter;
+
+/**
+ * Zdarzenie publikowane, gdy zmieniają się dane użytkownika istotne dla uwierzytelniania
+ * (zmiana roli, usunięcie konta, wylogowanie).
+ */
+@Getter
+public class UserChangedEvent {
+    private final String username;
+
+    public UserChangedEvent(String username) {
+        this.username = username;
+    }
+}
@@ -1,9 +1,12 @@
 package com.example.shop.exception;
 
 import io.jsonwebtoken.JwtException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
 import jakarta.persistence.OptimisticLockException;
@@ -55,4 +58,22 @@ public class GlobalExceptionHandler {
                 "Produkt został zmodyfikowany w międzyczasie. Spróbuj ponownie.");
         return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
     }
+
+    // brak wolnego połączenia z puli w connection-timeout (przeciążenie) - klient może spróbować ponownie
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity<ErrorResponse> handleConnectionUnavailable(RuntimeException ex) {
+        ErrorResponse errorResponse = new ErrorResponse("SERVICE_UNAVAILABLE",
+                "Serwer jest przeciążony. Spróbuj ponownie za chwilę.");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleServiceOverloaded(ServiceOverloadedException ex) {
+        ErrorResponse errorResponse = new ErrorResponse("SERVICE_UNAVAILABLE", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
 }
@@ -0,0 +1,11 @@
+package com.example.shop.exception;
+
+/**
+ * Serwer odrzuca żądanie, bo ograniczony zasób (np. pula haszowania haseł) jest w pełni zajęty - 503.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+
+    public ServiceOverloadedException(String message) {
+        super(message);
+    }
+}
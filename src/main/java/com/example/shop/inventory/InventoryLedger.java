@@ -0,0 +1,274 @@
+package com.example.shop.inventory;
+
+import com.example.shop.entity.Product;
+import com.example.shop.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Opcjonalny silnik rezerwacji stanu magazynowego w pamięci dla "gorących" produktów
+ * (inventory.ledger.enabled=true, lista id w inventory.ledger.product-ids).
+ *
+ * Dostępna ilość produktu jest rozłożona na kilka pasków (stripes) - każdy wątek rezerwuje najpierw ze "swojego"
+ * paska przez CAS, więc równoległe rezerwacje jednego produktu nie czekają na jedną blokadę wiersza w bazie.
+ * Zmiany stanu zbieramy w LongAdderach i co inventory.ledger.flush-interval-ms zapisujemy do bazy
+ * jednym UPDATE na produkt. Przy starcie ledger odbudowuje się ze stanu w bazie.
+ *
+ * Kolumna products.stockQuantity dla śledzonych produktów jest więc opóźniona najwyżej o jeden interwał flush.
+ */
+@Component
+public class InventoryLedger {
+
+    // odstęp między paskami w AtomicLongArray - każdy pasek w osobnej linii cache (64 B)
+    private static final int PADDING = 8;
+
+    private final ProductRepository productRepository;
+
+    @Value("${inventory.ledger.enabled:false}")
+    private boolean enabled = false;
+
+    @Value("${inventory.ledger.product-ids:}")
+    private String productIds = "";
+
+    @Value("${inventory.ledger.stripes:0}")
+    private int stripes = 0;
+
+    private final Map<Long, StockSlot> slots = new ConcurrentHashMap<>();
+    private final Map<Long, LongAdder> pendingDeltas = new ConcurrentHashMap<>();
+
+    // zapisy do bazy, które się nie udały (delta wraca do kolejki i idzie w następnym flush)
+    private final AtomicLong failedFlushes = new AtomicLong();
+
+    public InventoryLedger(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Odbudowa stanu ze bazy - po starcie aplikacji, zanim przyjdą pierwsze żądania.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        Set<Long> hotIds = Arrays.stream(productIds.split(","))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .map(Long::valueOf)
+                .collect(Collectors.toSet());
+        for (Product product : productRepository.findAllById(hotIds)) {
+            track(product.getId(), product.getStockQuantity());
+        }
+    }
+
+    /**
+     * Zaczyna śledzić produkt z podanym stanem (nadpisuje poprzedni stan i porzuca niezapisane zmiany).
+     */
+    public void track(Long productId, int stockQuantity) {
+        StockSlot slot = slots.computeIfAbsent(productId, id -> new StockSlot(stripeCount()));
+        synchronized (slot) {
+            pendingDeltas.computeIfAbsent(productId, id -> new LongAdder()).reset();
+            slot.fill(stockQuantity);
+        }
+    }
+
+    public boolean isTracked(Long productId) {
+        return enabled && slots.containsKey(productId);
+    }
+
+    /**
+     * Próbuje zarezerwować quantity sztuk. Jeśli trwa transakcja, rezerwacja jest cofana przy jej rollbacku.
+     */
+    public boolean tryReserve(Long productId, int quantity) {
+        return tryReserveAll(Map.of(productId, quantity));
+    }
+
+    /**
+     * Rezerwuje wszystkie pozycje albo żadnej (np. całe zamówienie) - przy braku stanu na którejkolwiek
+     * pozycji oddaje to, co zdążyło już zarezerwować. Jeśli trwa transakcja, rezerwacje są cofane przy rollbacku.
+     */
+    public boolean tryReserveAll(Map<Long, Integer> quantities) {
+        Map<Long, Integer> taken = new HashMap<>();
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            StockSlot slot = slots.get(line.getKey());
+            if (slot == null || line.getValue() <= 0 || !slot.take(line.getValue())) {
+                taken.forEach((productId, quantity) -> slots.get(productId).give(quantity));
+                return false;
+            }
+            taken.put(line.getKey(), line.getValue());
+        }
+        taken.forEach((productId, quantity) -> pendingDeltas.get(productId).add(-quantity));
+
+        if (!taken.isEmpty() && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        taken.forEach(InventoryLedger.this::release);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Zwraca sztuki do puli (np. wygasła rezerwacja).
+     */
+    public void release(Long productId, int quantity) {
+        StockSlot slot = slots.get(productId);
+        if (slot == null) {
+            return;
+        }
+        slot.give(quantity);
+        pendingDeltas.get(productId).add(quantity);
+    }
+
+    public long available(Long productId) {
+        StockSlot slot = slots.get(productId);
+        return slot == null ? 0 : slot.total();
+    }
+
+    /**
+     * Zapisuje zebrane zmiany stanu do bazy - jeden UPDATE na produkt, niezależnie od liczby rezerwacji.
+     */
+    @Scheduled(fixedDelayString = "${inventory.ledger.flush-interval-ms:200}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        pendingDeltas.forEach((productId, adder) -> {
+            long delta = adder.sumThenReset();
+            if (delta == 0) {
+                return;
+            }
+            try {
+                productRepository.adjustStock(productId, (int) delta);
+            } catch (RuntimeException ex) {
+                adder.add(delta);
+                failedFlushes.incrementAndGet();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    public long getFailedFlushes() {
+        return failedFlushes.get();
+    }
+
+    private int stripeCount() {
+        return stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Stan jednego produktu rozłożony na paski. Szybka ścieżka: CAS na pasku przypisanym do wątku,
+     * potem na kolejnych. Gdy żaden pasek nie ma całej ilości - wolna ścieżka pod blokadą zbiera ją z kilku.
+     */
+    static final class StockSlot {
+
+        private final int stripeCount;
+        private final AtomicLongArray stripes;
+
+        StockSlot(int stripeCount) {
+            this.stripeCount = stripeCount;
+            this.stripes = new AtomicLongArray(stripeCount * PADDING);
+        }
+
+        void fill(long quantity) {
+            long perStripe = quantity / stripeCount;
+            long remainder = quantity % stripeCount;
+            for (int i = 0; i < stripeCount; i++) {
+                stripes.set(i * PADDING, perStripe + (i < remainder ? 1 : 0));
+            }
+        }
+
+        boolean take(int quantity) {
+            int home = homeStripe();
+            for (int k = 0; k < stripeCount; k++) {
+                if (takeFromStripe((home + k) % stripeCount, quantity)) {
+                    return true;
+                }
+            }
+            return takeAcrossStripes(quantity);
+        }
+
+        void give(int quantity) {
+            stripes.addAndGet(homeStripe() * PADDING, quantity);
+        }
+
+        long total() {
+            long sum = 0;
+            for (int i = 0; i < stripeCount; i++) {
+                sum += stripes.get(i * PADDING);
+            }
+            return sum;
+        }
+
+        private boolean takeFromStripe(int stripe, long quantity) {
+            int index = stripe * PADDING;
+            while (true) {
+                long current = stripes.get(index);
+                if (current < quantity) {
+                    return false;
+                }
+                if (stripes.compareAndSet(index, current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+
+        // Ilość rozproszona po paskach - zbieramy po kawałku, a jeśli całości brakuje, oddajemy to, co wzięliśmy
+        private synchronized boolean takeAcrossStripes(int quantity) {
+            long[] taken = new long[stripeCount];
+            long missing = quantity;
+            for (int i = 0; i < stripeCount && missing > 0; i++) {
+                int index = i * PADDING;
+                while (true) {
+                    long current = stripes.get(index);
+                    long part = Math.min(current, missing);
+                    if (part <= 0) {
+                        break;
+                    }
+                    if (stripes.compareAndSet(index, current, current - part)) {
+                        taken[i] = part;
+                        missing -= part;
+                        break;
+                    }
+                }
+            }
+            if (missing == 0) {
+                return true;
+            }
+            for (int i = 0; i < stripeCount; i++) {
+                if (taken[i] > 0) {
+                    stripes.addAndGet(i * PADDING, taken[i]);
+                }
+            }
+            return false;
+        }
+
+        private int homeStripe() {
+            return (int) (Thread.currentThread().threadId() % stripeCount);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.shop.inventory;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Termin wygaśnięcia jednej rezerwacji (CartItem) w ReservationExpiryQueue.
+ * Tworzony też bezpośrednio przez JPQL "SELECT new ..." przy odbudowie kolejki.
+ */
+@Getter
+public class ReservationDeadline implements Delayed {
+
+    private final Long cartItemId;
+    private final long expiresAtMillis;
+
+    public ReservationDeadline(Long cartItemId, LocalDateTime expiresAt) {
+        this.cartItemId = cartItemId;
+        this.expiresAtMillis = expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(expiresAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+        return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.shop.inventory;
+
+import com.example.shop.repository.CartItemRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+
+/**
+ * Kolejka terminów rezerwacji koszyka uporządkowana po expiresAt (DelayQueue - kopiec, O(log n) na wpis).
+ * Rezerwacje trafiają tu przy addToCart, a po starcie aplikacji kolejka jest odbudowywana z cart_items.
+ * CartService co cart.expiry.poll-interval-ms zdejmuje z niej tylko te rezerwacje, które właśnie wygasły,
+ * więc stock wraca kilka sekund po expiresAt - bez przeglądania całej tabeli.
+ */
+@Component
+public class ReservationExpiryQueue {
+
+    private final CartItemRepository cartItemRepository;
+    private final DelayQueue<ReservationDeadline> deadlines = new DelayQueue<>();
+
+    public ReservationExpiryQueue(CartItemRepository cartItemRepository) {
+        this.cartItemRepository = cartItemRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        deadlines.clear();
+        deadlines.addAll(cartItemRepository.findReservationDeadlines());
+    }
+
+    public void schedule(Long cartItemId, LocalDateTime expiresAt) {
+        deadlines.add(new ReservationDeadline(cartItemId, expiresAt));
+    }
+
+    /**
+     * Zdejmuje z kolejki id wszystkich rezerwacji, których termin już minął.
+     */
+    public List<Long> drainExpired() {
+        List<ReservationDeadline> expired = new ArrayList<>();
+        deadlines.drainTo(expired);
+        return expired.stream().map(ReservationDeadline::getCartItemId).toList();
+    }
+
+    public int size() {
+        return deadlines.size();
+    }
+}
@@ -1,12 +1,19 @@
 package com.example.shop.mapper;
 
 import com.example.shop.dto.OrderDto;
+import com.example.shop.dto.OrderHistoryRow;
 import com.example.shop.dto.OrderItemDto;
 import com.example.shop.entity.Order;
 import com.example.shop.entity.OrderItem;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class OrderMapper {
 
@@ -39,4 +46,65 @@ public class OrderMapper {
         itemDto.setQuantity(item.getQuantity());
         return itemDto;
     }
+
+    /**
+     * Składa płaskie wiersze projekcji (zamówienie x pozycja) w listę OrderDto,
+     * zachowując kolejność zamówień z zapytania.
+     */
+    public static List<OrderDto> fromHistoryRows(List<OrderHistoryRow> rows) {
+        Map<Long, OrderDto> byOrderId = new LinkedHashMap<>();
+        for (OrderHistoryRow row : rows) {
+            OrderDto dto = byOrderId.computeIfAbsent(row.getOrderId(), id -> newOrderDto(row));
+            addItem(dto, row);
+        }
+        return new ArrayList<>(byOrderId.values());
+    }
+
+    /**
+     * Wersja strumieniowa: wiersze muszą przychodzić pogrupowane po zamówieniu (np. ORDER BY o.id).
+     * Każde złożone OrderDto trafia od razu do consumera - w pamięci jest tylko bieżące zamówienie.
+     * Zwraca liczbę zamówień.
+     */
+    public static long forEachOrder(Stream<OrderHistoryRow> rows, Consumer<OrderDto> consumer) {
+        OrderDto current = null;
+        long count = 0;
+        for (Iterator<OrderHistoryRow> it = rows.iterator(); it.hasNext(); ) {
+            OrderHistoryRow row = it.next();
+            if (current == null || !current.getId().equals(row.getOrderId())) {
+                if (current != null) {
+                    consumer.accept(current);
+                    count++;
+                }
+                current = newOrderDto(row);
+            }
+            addItem(current, row);
+        }
+        if (current != null) {
+            consumer.accept(current);
+            count++;
+        }
+        return count;
+    }
+
+    private static OrderDto newOrderDto(OrderHistoryRow row) {
+        OrderDto d = new OrderDto();
+        d.setId(row.getOrderId());
+        d.setCreatedAt(row.getCreatedAt());
+        d.setUserId(row.getUserId());
+        d.setUsername(row.getUsername());
+        d.setItems(new ArrayList<>());
+        return d;
+    }
+
+    private static void addItem(OrderDto dto, OrderHistoryRow row) {
+        // LEFT JOIN - zamówienie bez pozycji daje jeden wiersz z pustą częścią pozycji
+        if (row.getQuantity() != null) {
+            OrderItemDto itemDto = new OrderItemDto();
+            itemDto.setProductId(row.getProductId());
+            itemDto.setProductName(row.getProductName());
+            itemDto.setPriceAtOrderTime(row.getPriceAtOrderTime() != null ? row.getPriceAtOrderTime() : 0.0);
+            itemDto.setQuantity(row.getQuantity());
+            dto.getItems().add(itemDto);
+        }
+    }
 }
@@ -1,12 +1,17 @@
 package com.example.shop.repository;
 
+import com.example.shop.dto.ProductQuantityRow;
 import com.example.shop.entity.CartItem;
 import com.example.shop.entity.User;
+import com.example.shop.inventory.ReservationDeadline;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
@@ -14,8 +19,30 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     // wszystkie pozycje koszyka danego usera
     List<CartItem> findByUser(User user);
 
+    boolean existsByUserId(Long userId);
+
     // wyszukaj wszystkie, którym już upłynął termin rezerwacji
     @Query("SELECT c FROM CartItem c WHERE c.expiresAt < :now")
     List<CartItem> findAllExpired(@Param("now") LocalDateTime now);
 
+    // kolejna porcja id wygasłych rezerwacji - bez ładowania encji
+    @Query("SELECT c.id FROM CartItem c WHERE c.expiresAt < :now ORDER BY c.id")
+    List<Long> findExpiredIds(@Param("now") LocalDateTime now, Limit limit);
+
+    // te z podanych rezerwacji, które nadal istnieją i już wygasły
+    @Query("SELECT c.id FROM CartItem c WHERE c.id IN :ids AND c.expiresAt < :now")
+    List<Long> findExpiredIdsIn(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // terminy wszystkich rezerwacji - do odbudowy ReservationExpiryQueue po starcie
+    @Query("SELECT new com.example.shop.inventory.ReservationDeadline(c.id, c.expiresAt) FROM CartItem c")
+    List<ReservationDeadline> findReservationDeadlines();
+
+    // ile sztuk trzeba oddać każdemu produktowi z podanych rezerwacji
+    @Query("SELECT new com.example.shop.dto.ProductQuantityRow(c.product.id, SUM(c.quantity)) " +
+            "FROM CartItem c WHERE c.id IN :ids GROUP BY c.product.id")
+    List<ProductQuantityRow> sumQuantitiesByProduct(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM CartItem c WHERE c.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
 }
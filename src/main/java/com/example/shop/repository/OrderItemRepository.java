@@ -1,7 +1,16 @@
 package com.example.shop.repository;
 
+import com.example.shop.dto.ProductQuantityRow;
 import com.example.shop.entity.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+
+    // ile sztuk każdego produktu sprzedano łącznie (popularność w podpowiedziach)
+    @Query("SELECT new com.example.shop.dto.ProductQuantityRow(i.product.id, SUM(i.quantity)) " +
+            "FROM OrderItem i GROUP BY i.product.id")
+    List<ProductQuantityRow> sumQuantitiesByProduct();
 }
@@ -1,10 +1,69 @@
 package com.example.shop.repository;
 
+import com.example.shop.dto.OrderHistoryRow;
 import com.example.shop.entity.Order;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    // wspólna część zapytań projekcyjnych historii zamówień
+    String HISTORY_ROWS_SELECT = "SELECT new com.example.shop.dto.OrderHistoryRow(" +
+            "o.id, o.createdAt, u.id, u.username, p.id, p.name, i.priceAtOrderTime, i.quantity) " +
+            "FROM Order o JOIN o.user u LEFT JOIN o.items i LEFT JOIN i.product p ";
+
+    String HISTORY_ROWS_ORDER = "ORDER BY o.createdAt DESC, o.id DESC, i.id ASC";
+
+    // ile wierszy sterownik pobiera naraz przy eksporcie strumieniowym
+    String EXPORT_FETCH_SIZE = "1000";
+
     Optional<Order> findByPaymentExternalId(String paymentExternalId);
+
+    boolean existsByUserId(Long userId);
+
+    // pojedyncze zamówienie z pozycjami i produktami
+    @EntityGraph(attributePaths = {"user", "items", "items.product"})
+    Optional<Order> findWithItemsById(Long id);
+
+    // id zamówień usera na danej stronie, z opcjonalnym zakresem dat [from, to)
+    // (stronicujemy same id, bo fetch join kolekcji + limit wymusiłby stronicowanie w pamięci)
+    @Query("SELECT o.id FROM Order o WHERE o.user.id = :userId " +
+            "AND (:from IS NULL OR o.createdAt >= :from) " +
+            "AND (:to IS NULL OR o.createdAt < :to) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    Slice<Long> findIdSliceForUser(@Param("userId") Long userId,
+                                   @Param("from") LocalDateTime from,
+                                   @Param("to") LocalDateTime to,
+                                   Pageable pageable);
+
+    // historia zamówień usera jako płaskie wiersze DTO (bez hydratacji encji i dirty checkingu)
+    @Query(HISTORY_ROWS_SELECT + "WHERE u.id = :userId " + HISTORY_ROWS_ORDER)
+    List<OrderHistoryRow> findHistoryRowsByUserId(@Param("userId") Long userId);
+
+    // to samo dla konkretnej strony id (patrz findIdSliceForUser)
+    @Query(HISTORY_ROWS_SELECT + "WHERE o.id IN :ids " + HISTORY_ROWS_ORDER)
+    List<OrderHistoryRow> findHistoryRowsByOrderIds(@Param("ids") Collection<Long> ids);
+
+    // wszystkie zamówienia (opcjonalnie z zakresu [from, to)) jako kursor tylko do przodu - dla eksportu.
+    // Wiersze jednego zamówienia idą po sobie (ORDER BY o.id), więc można je składać w DTO na bieżąco.
+    // Strumień trzeba czytać w transakcji i zamknąć po użyciu.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(HISTORY_ROWS_SELECT +
+            "WHERE (:from IS NULL OR o.createdAt >= :from) AND (:to IS NULL OR o.createdAt < :to) " +
+            "ORDER BY o.id ASC, i.id ASC")
+    Stream<OrderHistoryRow> streamHistoryRows(@Param("from") LocalDateTime from,
+                                              @Param("to") LocalDateTime to);
 }
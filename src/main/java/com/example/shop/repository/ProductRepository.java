@@ -1,7 +1,53 @@
 package com.example.shop.repository;
 
+import com.example.shop.dto.ProductNameRow;
 import com.example.shop.entity.Product;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    // stronicowanie "keyset" - kolejna porcja produktów o id większym niż ostatnio zwrócone
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    // tylko id i nazwa wszystkich produktów (indeks podpowiedzi) - bez encji w persistence context
+    @Query("SELECT new com.example.shop.dto.ProductNameRow(p.id, p.name) FROM Product p")
+    List<ProductNameRow> findAllNames();
+
+    /**
+     * Warunkowe, atomowe zdjęcie stanu magazynowego jednym UPDATE - bez odczytu encji i bez konfliktów @Version.
+     * Zwraca 1, gdy stan wystarczył (i został zmniejszony), 0 gdy nie (albo produkt nie istnieje).
+     * Wersję podbijamy ręcznie, żeby równoległy zapis encji (np. updateStockQuantity) nie nadpisał zmiany.
+     */
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity, p.version = p.version + 1 " +
+            "WHERE p.id = :id AND p.stockQuantity >= :quantity")
+    int decrementStockIfAvailable(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * Dopisuje do stanu zagregowaną zmianę (ujemną lub dodatnią) - używane przez InventoryLedger przy flush.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :delta, p.version = p.version + 1 " +
+            "WHERE p.id = :id")
+    int adjustStock(@Param("id") Long id, @Param("delta") int delta);
+
+    /**
+     * Wszystkie produkty zamówienia jednym zapytaniem, z blokadą zapisu na wierszach.
+     * Blokady są zakładane w kolejności rosnącego id, więc dwa zamówienia z tymi samymi produktami
+     * (w dowolnej kolejności w koszyku) nie mogą się zakleszczyć.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids ORDER BY p.id")
+    List<Product> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
 }
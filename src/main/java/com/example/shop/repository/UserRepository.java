@@ -2,9 +2,23 @@ package com.example.shop.repository;
 
 import com.example.shop.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
+
+    // same nazwy (bez haseł i ról) - do budowy UsernameBloomFilter
+    @Query("SELECT u.username FROM User u")
+    List<String> findAllUsernames();
+
+    @Query("SELECT MAX(u.id) FROM User u")
+    Long findMaxId();
+
+    // konta dodane od ostatniego odczytu (też przez inną instancję albo skrypt SQL) - id w (afterId, maxId]
+    @Query("SELECT u.username FROM User u WHERE u.id > :afterId AND u.id <= :maxId")
+    List<String> findUsernamesByIdBetween(@Param("afterId") long afterId, @Param("maxId") long maxId);
 }
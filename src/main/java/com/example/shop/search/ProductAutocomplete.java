@@ -0,0 +1,332 @@
+package com.example.shop.search;
+
+import com.example.shop.dto.ProductNameRow;
+import com.example.shop.dto.ProductQuantityRow;
+import com.example.shop.dto.ProductSuggestionDto;
+import com.example.shop.event.ProductChangedEvent;
+import com.example.shop.event.ProductImportEvent;
+import com.example.shop.repository.OrderItemRepository;
+import com.example.shop.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Podpowiedzi nazw produktów (autocomplete) po prefiksie nazwy, od najczęściej kupowanych.
+ *
+ * Zamiast drzewa węzłów (trie) trzymamy posortowane tablice znormalizowanych nazw - prefiks to ciągły
+ * przedział tablicy (dwa wyszukiwania binarne). Nad popularnością (suma OrderItem.quantity) jest drzewo
+ * przedziałowe z indeksem maksimum, więc top-N z przedziału to O(N log n) niezależnie od tego, ile nazw
+ * pasuje do prefiksu. Kilka tablic prymitywów zamiast obiektu na każdą literę - mało pamięci przy milionie nazw.
+ *
+ * Zmiany pojedynczych produktów (nowa nazwa, usunięcie) trafiają od razu do małej nakładki (pending/removed).
+ * Tablice przebudowujemy co products.autocomplete.refresh-interval-ms (nowa popularność),
+ * gdy nakładka urośnie ponad products.autocomplete.max-pending albo po zmianie wielu produktów naraz
+ * (sprawdzane co products.autocomplete.rebuild-interval-ms). Zwolnienie rezerwacji (ProductStockReleasedEvent)
+ * zmienia tylko stan magazynowy, więc go nie słuchamy.
+ */
+@Component
+public class ProductAutocomplete {
+
+    private final ProductRepository productRepository;
+    private final OrderItemRepository orderItemRepository;
+
+    @Value("${products.autocomplete.max-results:10}")
+    private int maxResults = 10;
+
+    @Value("${products.autocomplete.max-pending:10000}")
+    private int maxPending = 10000;
+
+    private volatile Snapshot snapshot = Snapshot.build(List.of(), Map.of());
+
+    private final AtomicBoolean stale = new AtomicBoolean();
+    private volatile boolean rebuilding;
+
+    public ProductAutocomplete(ProductRepository productRepository, OrderItemRepository orderItemRepository) {
+        this.productRepository = productRepository;
+        this.orderItemRepository = orderItemRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuilding = true;
+        try {
+            stale.set(false);
+            Map<Long, Long> popularity = new HashMap<>();
+            for (ProductQuantityRow row : orderItemRepository.sumQuantitiesByProduct()) {
+                popularity.put(row.getProductId(), row.getQuantity());
+            }
+            snapshot = Snapshot.build(productRepository.findAllNames(), popularity);
+        } finally {
+            rebuilding = false;
+        }
+    }
+
+    // popularność zmienia się z każdym zamówieniem - wystarczy ją odświeżać co jakiś czas
+    @Scheduled(fixedDelayString = "${products.autocomplete.refresh-interval-ms:300000}",
+            initialDelayString = "${products.autocomplete.refresh-interval-ms:300000}")
+    public void refresh() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${products.autocomplete.rebuild-interval-ms:1000}")
+    public void rebuildIfStale() {
+        if (stale.get()) {
+            rebuild();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getProductId() == null) {
+            stale.set(true);
+            return;
+        }
+        Snapshot current = snapshot;
+        productRepository.findById(event.getProductId()).ifPresentOrElse(
+                product -> current.put(product.getId(), product.getName()),
+                () -> current.remove(event.getProductId()));
+        // zmiana w trakcie przebudowy mogła nie trafić do nowych tablic
+        if (rebuilding || snapshot != current || current.pending.size() > maxPending) {
+            stale.set(true);
+        }
+    }
+
+    // import przebudowuje tablice raz, po ostatniej paczce
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductImport(ProductImportEvent event) {
+        if (event.isFinished()) {
+            stale.set(true);
+        }
+    }
+
+    /**
+     * Do size (domyślnie i maksymalnie products.autocomplete.max-results) nazw zaczynających się od prefiksu,
+     * od najpopularniejszych. Wielkość liter i polskie znaki nie mają znaczenia.
+     */
+    public List<ProductSuggestionDto> suggest(String prefix, Integer size) {
+        int limit = size == null ? maxResults : Math.min(Math.max(size, 1), maxResults);
+        String key = prefix == null ? "" : ProductSearchIndex.normalize(prefix.stripLeading());
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        return snapshot.suggest(key, limit);
+    }
+
+    public int size() {
+        Snapshot current = snapshot;
+        return current.keys.length - current.removed.size() + current.pending.size();
+    }
+
+    /**
+     * Tablice posortowane po znormalizowanej nazwie + nakładka ze zmianami od ostatniej przebudowy.
+     */
+    static final class Snapshot {
+
+        private final String[] keys;
+        private final String[] names;
+        private final long[] ids;
+        private final long[] popularity;
+
+        // drzewo przedziałowe: tree[n + i] = i, tree[k] = pozycja najpopularniejszej nazwy w poddrzewie k
+        private final int[] tree;
+
+        // id -> pozycja w tablicach (posortowane id + pozycje, bez HashMapy z obiektami Long)
+        private final long[] sortedIds;
+        private final int[] positions;
+
+        private final Map<Long, Entry> pending = new ConcurrentHashMap<>();
+        private final Set<Long> removed = ConcurrentHashMap.newKeySet();
+
+        private Snapshot(String[] keys, String[] names, long[] ids, long[] popularity) {
+            int n = keys.length;
+            this.keys = keys;
+            this.names = names;
+            this.ids = ids;
+            this.popularity = popularity;
+
+            this.tree = new int[2 * n];
+            for (int i = 0; i < n; i++) {
+                tree[n + i] = i;
+            }
+            for (int k = n - 1; k > 0; k--) {
+                tree[k] = better(tree[2 * k], tree[2 * k + 1]);
+            }
+
+            Integer[] byId = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                byId[i] = i;
+            }
+            Arrays.sort(byId, Comparator.comparingLong(i -> ids[i]));
+            this.sortedIds = new long[n];
+            this.positions = new int[n];
+            for (int i = 0; i < n; i++) {
+                sortedIds[i] = ids[byId[i]];
+                positions[i] = byId[i];
+            }
+        }
+
+        static Snapshot build(List<ProductNameRow> rows, Map<Long, Long> popularity) {
+            List<Entry> entries = new ArrayList<>(rows.size());
+            for (ProductNameRow row : rows) {
+                if (row.getName() != null && !row.getName().isBlank()) {
+                    entries.add(new Entry(row.getId(), row.getName(), popularity.getOrDefault(row.getId(), 0L)));
+                }
+            }
+            entries.sort(Comparator.comparing((Entry e) -> e.key).thenComparingLong(e -> e.id));
+
+            int n = entries.size();
+            String[] keys = new String[n];
+            String[] names = new String[n];
+            long[] ids = new long[n];
+            long[] scores = new long[n];
+            for (int i = 0; i < n; i++) {
+                Entry entry = entries.get(i);
+                keys[i] = entry.key;
+                names[i] = entry.name;
+                ids[i] = entry.id;
+                scores[i] = entry.popularity;
+            }
+            return new Snapshot(keys, names, ids, scores);
+        }
+
+        void put(long id, String name) {
+            int position = position(id);
+            if (name == null || name.isBlank()) {
+                remove(id);
+                return;
+            }
+            if (position >= 0 && names[position].equals(name)) {
+                // np. zmiana stanu magazynowego - nazwa bez zmian
+                pending.remove(id);
+                removed.remove(id);
+                return;
+            }
+            pending.put(id, new Entry(id, name, position >= 0 ? popularity[position] : 0));
+            if (position >= 0) {
+                removed.add(id);
+            }
+        }
+
+        void remove(long id) {
+            pending.remove(id);
+            if (position(id) >= 0) {
+                removed.add(id);
+            }
+        }
+
+        List<ProductSuggestionDto> suggest(String prefix, int limit) {
+            List<Entry> hits = new ArrayList<>(limit);
+
+            // przedział [from, to) nazw zaczynających się od prefiksu; z niego kolejne maksima popularności
+            int from = lowerBound(prefix);
+            int to = lowerBound(prefix + Character.MAX_VALUE);
+            PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> better(a[2], b[2]) == a[2] ? -1 : 1);
+            if (from < to) {
+                ranges.add(new int[]{from, to, maxIn(from, to)});
+            }
+            while (!ranges.isEmpty() && hits.size() < limit) {
+                int[] range = ranges.poll();
+                int best = range[2];
+                if (!removed.contains(ids[best])) {
+                    hits.add(new Entry(ids[best], names[best], keys[best], popularity[best]));
+                }
+                if (range[0] < best) {
+                    ranges.add(new int[]{range[0], best, maxIn(range[0], best)});
+                }
+                if (best + 1 < range[1]) {
+                    ranges.add(new int[]{best + 1, range[1], maxIn(best + 1, range[1])});
+                }
+            }
+
+            // nakładka jest mała (najwyżej max-pending wpisów)
+            if (!pending.isEmpty()) {
+                for (Entry entry : pending.values()) {
+                    if (entry.key.startsWith(prefix)) {
+                        hits.add(entry);
+                    }
+                }
+                hits.sort(Comparator.comparingLong((Entry e) -> -e.popularity)
+                        .thenComparing(e -> e.key)
+                        .thenComparingLong(e -> e.id));
+            }
+            return hits.stream()
+                    .limit(limit)
+                    .map(entry -> new ProductSuggestionDto(entry.id, entry.name))
+                    .toList();
+        }
+
+        // pozycja najpopularniejszej nazwy w [from, to)
+        private int maxIn(int from, int to) {
+            int n = keys.length;
+            int best = -1;
+            for (int l = from + n, r = to + n; l < r; l >>= 1, r >>= 1) {
+                if ((l & 1) == 1) {
+                    best = better(best, tree[l++]);
+                }
+                if ((r & 1) == 1) {
+                    best = better(best, tree[--r]);
+                }
+            }
+            return best;
+        }
+
+        // wyżej popularność, przy remisie wcześniejsza alfabetycznie nazwa
+        private int better(int a, int b) {
+            if (a < 0) {
+                return b;
+            }
+            if (b < 0) {
+                return a;
+            }
+            if (popularity[a] != popularity[b]) {
+                return popularity[a] > popularity[b] ? a : b;
+            }
+            return Math.min(a, b);
+        }
+
+        private int lowerBound(String key) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private int position(long id) {
+            int index = Arrays.binarySearch(sortedIds, id);
+            return index >= 0 ? positions[index] : -1;
+        }
+    }
+
+    private static final class Entry {
+        private final long id;
+        private final String name;
+        private final String key;
+        private final long popularity;
+
+        private Entry(long id, String name, long popularity) {
+            this(id, name, ProductSearchIndex.normalize(name), popularity);
+        }
+
+        private Entry(long id, String name, String key, long popularity) {
+            this.id = id;
+            this.name = name;
+            this.key = key;
+            this.popularity = popularity;
+        }
+    }
+}
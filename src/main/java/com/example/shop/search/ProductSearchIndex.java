@@ -0,0 +1,319 @@
+package com.example.shop.search;
+
+import com.example.shop.dto.PriceFacetDto;
+import com.example.shop.dto.ProductSearchResultDto;
+import com.example.shop.entity.Product;
+import com.example.shop.event.ProductChangedEvent;
+import com.example.shop.event.ProductImportEvent;
+import com.example.shop.event.ProductStockReleasedEvent;
+import com.example.shop.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Indeks odwrócony nazw produktów w pamięci - wyszukiwanie bez zapytań do bazy.
+ *
+ * Nazwa jest dzielona na tokeny (małe litery, bez polskich znaków), token -> zbiór id produktów trzymamy
+ * w TreeMap, więc dopasowanie prefiksu to jeden subMap. Przy starcie indeks ładuje cały katalog,
+ * potem jest aktualizowany po każdym ProductChangedEvent (pojedynczy produkt - od razu; zmiana wielu
+ * produktów - przebudowa w tle co products.search.rebuild-interval-ms). Import przebudowuje indeks raz,
+ * po zakończeniu (ProductImportEvent.finished), a nie po każdej paczce. Po zwolnieniu rezerwacji
+ * (ProductStockReleasedEvent) odświeżamy tylko produkty, którym wrócił stan.
+ */
+@Component
+public class ProductSearchIndex {
+
+    // kolejność wyników: więcej tokenów dopasowanych w całości, potem nazwa, potem id
+    private static final Comparator<Hit> RANKING = Comparator.comparingInt((Hit hit) -> -hit.score)
+            .thenComparing(hit -> hit.product.getName(), Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(hit -> hit.product.getId());
+
+    private final ProductRepository productRepository;
+
+    @Value("${products.search.max-results:100}")
+    private int maxResults = 100;
+
+    // granice przedziałów cen w facetach, np. 50,100 -> [0,50), [50,100), [100,∞)
+    @Value("${products.search.price-facets:50,100,500,1000}")
+    private double[] priceFacets = {50, 100, 500, 1000};
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Long, Product> documents = new HashMap<>();
+    private TreeMap<String, Set<Long>> postings = new TreeMap<>();
+
+    // ustawiane przez zmiany wielu produktów naraz (i zmiany w trakcie przebudowy)
+    private final AtomicBoolean stale = new AtomicBoolean();
+    private volatile boolean rebuilding;
+
+    public ProductSearchIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuilding = true;
+        try {
+            stale.set(false);
+            Map<Long, Product> newDocuments = new HashMap<>();
+            TreeMap<String, Set<Long>> newPostings = new TreeMap<>();
+            for (Product product : productRepository.findAll()) {
+                Product snapshot = snapshot(product);
+                newDocuments.put(snapshot.getId(), snapshot);
+                addPostings(newPostings, snapshot);
+            }
+            lock.writeLock().lock();
+            try {
+                documents = newDocuments;
+                postings = newPostings;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            rebuilding = false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${products.search.rebuild-interval-ms:1000}")
+    public void rebuildIfStale() {
+        if (stale.get()) {
+            rebuild();
+        }
+    }
+
+    // po commicie, jak ProductCacheInvalidator - indeks widzi tylko zatwierdzone zmiany
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getProductId() == null) {
+            stale.set(true);
+            return;
+        }
+        productRepository.findById(event.getProductId())
+                .ifPresentOrElse(this::index, () -> remove(event.getProductId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductImport(ProductImportEvent event) {
+        if (event.isFinished()) {
+            stale.set(true);
+        }
+    }
+
+    // jedno findAllById dla produktów z przebiegu zwalniania rezerwacji - bez przebudowy całego indeksu
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockReleased(ProductStockReleasedEvent event) {
+        Set<Long> missing = new HashSet<>(event.getProductIds());
+        for (Product product : productRepository.findAllById(event.getProductIds())) {
+            index(product);
+            missing.remove(product.getId());
+        }
+        missing.forEach(this::remove);
+    }
+
+    public void index(Product product) {
+        Product snapshot = snapshot(product);
+        lock.writeLock().lock();
+        try {
+            removePostings(documents.put(snapshot.getId(), snapshot));
+            addPostings(postings, snapshot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        markStaleIfRebuilding();
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removePostings(documents.remove(productId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        markStaleIfRebuilding();
+    }
+
+    /**
+     * Produkty, których nazwa zawiera wszystkie tokeny zapytania (każdy jako prefiks słowa),
+     * w zadanym przedziale cen. Najpierw produkty z największą liczbą tokenów dopasowanych w całości.
+     * Puste zapytanie = wszystkie produkty (np. samo filtrowanie po cenie).
+     */
+    public ProductSearchResultDto search(String query, Double minPrice, Double maxPrice, Integer size) {
+        int limit = size == null ? 20 : Math.min(Math.max(size, 1), maxResults);
+        List<String> tokens = tokenize(query).stream().distinct().toList();
+
+        lock.readLock().lock();
+        try {
+            Set<Long> candidates = tokens.isEmpty() ? documents.keySet() : null;
+            for (String token : tokens) {
+                candidates = candidates == null ? prefixMatches(token) : intersect(candidates, prefixMatches(token));
+                if (candidates.isEmpty()) {
+                    break;
+                }
+            }
+
+            // najlepsze trafienia w kopcu ograniczonym do limit (na szczycie najsłabsze) - puste albo bardzo
+            // szerokie zapytanie nie sortuje całego katalogu
+            long[] facetCounts = new long[priceFacets.length + 1];
+            PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, RANKING.reversed());
+            long total = 0;
+            for (Long id : candidates) {
+                Product product = documents.get(id);
+                double price = product.getPrice() == null ? 0 : product.getPrice();
+                facetCounts[facetIndex(price)]++;
+                if ((minPrice == null || price >= minPrice) && (maxPrice == null || price <= maxPrice)) {
+                    total++;
+                    Hit hit = new Hit(product, exactMatches(tokens, id));
+                    if (top.size() < limit) {
+                        top.add(hit);
+                    } else if (RANKING.compare(hit, top.peek()) < 0) {
+                        top.poll();
+                        top.add(hit);
+                    }
+                }
+            }
+
+            List<Hit> best = new ArrayList<>(top);
+            best.sort(RANKING);
+            List<Product> items = best.stream().map(hit -> hit.product).toList();
+            return new ProductSearchResultDto(items, total, facets(facetCounts));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * "Ładowarka USB-C" -> [ladowarka, usb, c]
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(normalize(text).split("[^\\p{L}\\p{N}]+"))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+
+    // małe litery, bez znaków diakrytycznych ("Łódź" -> "lodz")
+    static String normalize(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        if (lower.chars().allMatch(c -> c < 128)) {
+            return lower; // szybka ścieżka - większość nazw jest w ASCII
+        }
+        return Normalizer.normalize(lower, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .replace('ł', 'l');
+    }
+
+    private Set<Long> prefixMatches(String prefix) {
+        SortedMap<String, Set<Long>> terms = postings.subMap(prefix, prefix + Character.MAX_VALUE);
+        if (terms.size() == 1) {
+            return terms.values().iterator().next();
+        }
+        Set<Long> ids = new HashSet<>();
+        terms.values().forEach(ids::addAll);
+        return ids;
+    }
+
+    // przechodzimy po mniejszym zbiorze
+    private static Set<Long> intersect(Set<Long> a, Set<Long> b) {
+        Set<Long> smaller = a.size() <= b.size() ? a : b;
+        Set<Long> larger = smaller == a ? b : a;
+        Set<Long> result = new HashSet<>();
+        for (Long id : smaller) {
+            if (larger.contains(id)) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    private int exactMatches(List<String> tokens, Long id) {
+        int score = 0;
+        for (String token : tokens) {
+            Set<Long> ids = postings.get(token);
+            if (ids != null && ids.contains(id)) {
+                score++;
+            }
+        }
+        return score;
+    }
+
+    private int facetIndex(double price) {
+        int index = 0;
+        while (index < priceFacets.length && price >= priceFacets[index]) {
+            index++;
+        }
+        return index;
+    }
+
+    private List<PriceFacetDto> facets(long[] counts) {
+        List<PriceFacetDto> facets = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            double from = i == 0 ? 0 : priceFacets[i - 1];
+            Double to = i < priceFacets.length ? priceFacets[i] : null;
+            facets.add(new PriceFacetDto(from, to, counts[i]));
+        }
+        return facets;
+    }
+
+    private static void addPostings(TreeMap<String, Set<Long>> postings, Product product) {
+        for (String token : tokenize(product.getName())) {
+            postings.computeIfAbsent(token, t -> new HashSet<>()).add(product.getId());
+        }
+    }
+
+    private void removePostings(Product previous) {
+        if (previous == null) {
+            return;
+        }
+        for (String token : tokenize(previous.getName())) {
+            Set<Long> ids = postings.get(token);
+            if (ids != null && ids.remove(previous.getId()) && ids.isEmpty()) {
+                postings.remove(token);
+            }
+        }
+    }
+
+    // zmiana w trakcie przebudowy mogłaby zostać nadpisana starszym stanem z findAll - przebudujemy jeszcze raz
+    private void markStaleIfRebuilding() {
+        if (rebuilding) {
+            stale.set(true);
+        }
+    }
+
+    // indeks trzyma własne kopie, niezależne od encji w persistence context
+    private static Product snapshot(Product product) {
+        Product copy = new Product(product.getName(), product.getPrice(), product.getStockQuantity());
+        copy.setId(product.getId());
+        copy.setVersion(product.getVersion());
+        return copy;
+    }
+
+    private static final class Hit {
+        private final Product product;
+        private final int score;
+
+        private Hit(Product product, int score) {
+            this.product = product;
+            this.score = score;
+        }
+    }
+}
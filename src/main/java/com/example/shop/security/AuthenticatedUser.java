@@ -0,0 +1,46 @@
+package com.example.shop.security;
+
+import com.example.shop.entity.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Principal w SecurityContext, który trzyma encję User rozwiązaną przy uwierzytelnianiu.
+ * Dzięki temu AuthService.getCurrentUser() nie musi ponownie pytać bazy w tym samym żądaniu.
+ */
+public class AuthenticatedUser implements UserDetails {
+
+    private final User user;
+    private final List<GrantedAuthority> authorities;
+
+    public AuthenticatedUser(User user) {
+        this.user = user;
+        // user.getRole() ma już prefiks, np. "ROLE_ADMIN"
+        this.authorities = user.getRole() == null
+                ? List.of()
+                : List.of(new SimpleGrantedAuthority(user.getRole()));
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return user.getPassword();
+    }
+
+    @Override
+    public String getUsername() {
+        return user.getUsername();
+    }
+}
@@ -4,7 +4,9 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -17,10 +19,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsServiceImpl userDetailsService;
+    private final TokenDenyList tokenDenyList;
 
-    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsServiceImpl userDetailsService) {
+    // Tryb bezstanowy: role i id usera bierzemy z podpisanego tokenu, bez zapytania do bazy / cache
+    @Value("${auth.stateless:false}")
+    private boolean stateless = false;
+
+    public JwtAuthenticationFilter(JwtService jwtService,
+                                   UserDetailsServiceImpl userDetailsService,
+                                   TokenDenyList tokenDenyList) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.tokenDenyList = tokenDenyList;
     }
 
     @Override
@@ -32,7 +42,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String username;
+        final JwtClaims claims;
 
         // 1. Brak nagłówka lub nie zaczyna się od "Bearer "
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
@@ -42,15 +52,36 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         // 2. Wyciągamy token JWT
         jwt = authHeader.substring(7); // "Bearer " ma 7 znaków
-        username = jwtService.extractUsername(jwt);
+        // parsujemy i weryfikujemy podpis tylko raz - dalej korzystamy z gotowych claims
+        claims = jwtService.parseToken(jwt);
+        final String username = claims.getUsername();
+
+        // odwołany token (zmiana roli, usunięcie konta, wylogowanie) - nie uwierzytelniamy
+        if (tokenDenyList.isRevoked(claims)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        // 3a. Tryb bezstanowy: Authentication tylko z claimów (podpis i ważność sprawdził już parseToken)
+        if (stateless && claims.isSelfContained()
+                && username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                    new TokenPrincipal(claims.getUserId(), username),
+                    null,
+                    claims.getRoles().stream().map(SimpleGrantedAuthority::new).toList()
+            );
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
+        }
 
         // 3. Jeśli user jeszcze nie jest zalogowany w SecurityContext
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            // 4. Pobieramy dane użytkownika (Spring Security userdetails)
+            // 4. Pobieramy dane użytkownika (Spring Security userdetails) - z PrincipalCache,
+            //    a principal (AuthenticatedUser) niesie encję User dalej, do AuthService.getCurrentUser()
             var userDetails = userDetailsService.loadUserByUsername(username);
 
             // 5. Weryfikujemy ważność tokenu
-            if (jwtService.isTokenValid(jwt, userDetails.getUsername())) {
+            if (jwtService.isTokenValid(claims, userDetails.getUsername())) {
                 // 6. Tworzymy obiekt Authentication i ustawiamy w kontekście
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
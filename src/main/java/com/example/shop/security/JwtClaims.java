@@ -0,0 +1,36 @@
+package com.example.shop.security;
+
+import lombok.Getter;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Wynik jednokrotnej weryfikacji tokenu JWT (podpis + data ważności).
+ * tokenId i userId są null dla tokenów wystawionych bez claimów (generateToken(String)).
+ */
+@Getter
+public class JwtClaims {
+    private final String tokenId;
+    private final String username;
+    private final Long userId;
+    private final Date issuedAt;
+    private final Date expiration;
+    private final List<String> roles;
+
+    public JwtClaims(String tokenId, String username, Long userId, Date issuedAt, Date expiration, List<String> roles) {
+        this.tokenId = tokenId;
+        this.username = username;
+        this.userId = userId;
+        this.issuedAt = issuedAt;
+        this.expiration = expiration;
+        this.roles = roles;
+    }
+
+    /**
+     * Czy token niesie wszystko, czego potrzeba do autoryzacji bez bazy.
+     */
+    public boolean isSelfContained() {
+        return userId != null && !roles.isEmpty();
+    }
+}
@@ -1,27 +1,43 @@
 package com.example.shop.security;
 
+import com.example.shop.entity.User;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.Date;
+import java.util.List;
+import java.util.UUID;
 
 @Service
 public class JwtService {
 
+    static final String ROLES_CLAIM = "roles";
+    static final String USER_ID_CLAIM = "uid";
+
     @Value("${jwt.secret.key}")
     private String secretKey;
 
     @Value("${jwt.expiration}")
     private long jwtExpirationInMs; // np. 86400000 (24h)
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+    // Klucz HMAC i parser budujemy raz przy starcie - JwtParser jest niemutowalny i bezpieczny wątkowo
+    private Key signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
 
     public String generateToken(String username) {
@@ -30,43 +46,84 @@ public class JwtService {
                 .setSubject(username)
                 .setIssuedAt(new Date(now))
                 .setExpiration(new Date(now + jwtExpirationInMs))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    /**
+     * Access token z podpisanymi claimami id usera i ról oraz unikalnym jti (do odwoływania przez TokenDenyList).
+     * W trybie bezstanowym (auth.stateless=true) filtr buduje z nich Authentication bez zapytania do bazy.
+     */
+    public String generateToken(User user) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
+                .setSubject(user.getUsername())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLES_CLAIM, user.getRole() == null ? List.of() : List.of(user.getRole()))
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + jwtExpirationInMs))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /**
+     * Parsuje token i weryfikuje podpis oraz datę ważności - jeden raz na żądanie.
+     * Rzuca JwtException (np. ExpiredJwtException), jeśli token jest niepoprawny lub wygasł.
+     */
+    public JwtClaims parseToken(String token) {
+        Claims claims = extractAllClaims(token);
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        return new JwtClaims(
+                claims.getId(),
+                claims.getSubject(),
+                userId == null ? null : userId.longValue(),
+                claims.getIssuedAt(),
+                claims.getExpiration(),
+                extractRoles(claims)
+        );
+    }
+
     /**
      * Wyciąga nazwę użytkownika (subject) z tokenu.
      */
     public String extractUsername(String token) {
-        Claims claims = extractAllClaims(token);
-        return claims.getSubject();
+        return parseToken(token).getUsername();
     }
 
     /**
      * Sprawdza, czy token jest ważny (nieprzeterminowany) i czy należy do danego użytkownika.
      */
     public boolean isTokenValid(String token, String username) {
-        final String userNameFromToken = extractUsername(token);
-        return (userNameFromToken.equals(username) && !isTokenExpired(token));
+        return isTokenValid(parseToken(token), username);
+    }
+
+    /**
+     * Jak wyżej, ale dla tokenu, który został już sparsowany (bez ponownej weryfikacji podpisu).
+     */
+    public boolean isTokenValid(JwtClaims claims, String username) {
+        return claims.getUsername().equals(username) && !isTokenExpired(claims);
     }
 
     /**
      * Sprawdza, czy token wygasł (data wygaśnięcia jest w przeszłości).
      */
-    private boolean isTokenExpired(String token) {
-        Date expiration = extractAllClaims(token).getExpiration();
-        return expiration.before(new Date());
+    private boolean isTokenExpired(JwtClaims claims) {
+        return claims.getExpiration().before(new Date());
     }
 
     /**
      * Parsuje i wyciąga wszystkie dane (Claims) z tokenu.
      */
     private Claims extractAllClaims(String token) {
-        Key key = getSigningKey();
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    private List<String> extractRoles(Claims claims) {
+        Object roles = claims.get(ROLES_CLAIM);
+        if (roles instanceof List<?> list) {
+            return list.stream().map(String::valueOf).toList();
+        }
+        return List.of();
     }
 }
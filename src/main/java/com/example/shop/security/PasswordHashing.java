@@ -0,0 +1,127 @@
+package com.example.shop.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Konfiguracja haszowania haseł: nowe hasła w algorytmie auth.password.algorithm (bcrypt albo pbkdf2)
+ * z prefiksem {id}, np. "{bcrypt}$2a$10$..." albo "{pbkdf2}310000$...". Sprawdzamy każdy znany format - także
+ * stare hashe bcrypt bez prefiksu. upgradeEncoding() mówi, czy hash trzeba przeliczyć (inny algorytm albo inny
+ * koszt) - AuthService robi to przy udanym logowaniu, gdy zna hasło w postaci jawnej.
+ */
+public final class PasswordHashing {
+
+    public static final String BCRYPT = "bcrypt";
+    public static final String PBKDF2 = "pbkdf2";
+
+    private PasswordHashing() {
+    }
+
+    public static PasswordEncoder delegatingEncoder(String algorithm, int bcryptStrength, int pbkdf2Iterations) {
+        PasswordEncoder bcrypt = new CostAwareBCryptPasswordEncoder(bcryptStrength);
+        Map<String, PasswordEncoder> encoders = Map.of(
+                BCRYPT, bcrypt,
+                PBKDF2, new IterationAwarePbkdf2PasswordEncoder(pbkdf2Iterations));
+        if (!encoders.containsKey(algorithm)) {
+            throw new IllegalArgumentException("Nieznany algorytm haszowania haseł: " + algorithm);
+        }
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        // hashe sprzed wprowadzenia prefiksów to czysty bcrypt
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+
+    /**
+     * BCrypt, który chce przeliczyć hash przy każdej zmianie kosztu (BCryptPasswordEncoder tylko przy wzroście),
+     * żeby koszt logowania zawsze odpowiadał konfiguracji - także po jej obniżeniu.
+     */
+    static final class CostAwareBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+        private static final Pattern COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+        private final int strength;
+
+        CostAwareBCryptPasswordEncoder(int strength) {
+            super(strength);
+            this.strength = strength;
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            Matcher matcher = COST.matcher(encodedPassword == null ? "" : encodedPassword);
+            return !matcher.find() || Integer.parseInt(matcher.group(1)) != strength;
+        }
+    }
+
+    /**
+     * PBKDF2 z liczbą iteracji zapisaną w hashu ("310000$sól+hash hex"). Pbkdf2PasswordEncoder jej nie zapisuje
+     * i sprawdza każdy hash bieżącą konfiguracją - po zmianie auth.password.pbkdf2-iterations żadne hasło by
+     * nie pasowało. Tu hash sprawdzamy jego własną liczbą iteracji, a przy innej niż w konfiguracji prosimy
+     * o przeliczenie. Hash bez liczby iteracji (sprzed tej zmiany) sprawdzamy bieżącą konfiguracją.
+     */
+    static final class IterationAwarePbkdf2PasswordEncoder implements PasswordEncoder {
+
+        // górna granica dla liczby iteracji odczytanej z bazy
+        private static final int MAX_ITERATIONS = 10_000_000;
+
+        private final int iterations;
+        private final Map<Integer, Pbkdf2PasswordEncoder> encoders = new ConcurrentHashMap<>();
+
+        IterationAwarePbkdf2PasswordEncoder(int iterations) {
+            if (iterations < 1 || iterations > MAX_ITERATIONS) {
+                throw new IllegalArgumentException("Nieprawidłowa liczba iteracji PBKDF2: " + iterations);
+            }
+            this.iterations = iterations;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return iterations + "$" + encoder(iterations).encode(rawPassword);
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            if (encodedPassword == null) {
+                return false;
+            }
+            int separator = encodedPassword.indexOf('$');
+            if (separator < 0) {
+                return encoder(iterations).matches(rawPassword, encodedPassword);
+            }
+            int hashIterations = iterationsOf(encodedPassword);
+            return hashIterations > 0
+                    && encoder(hashIterations).matches(rawPassword, encodedPassword.substring(separator + 1));
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            return encodedPassword == null || iterationsOf(encodedPassword) != iterations;
+        }
+
+        // liczba iteracji z "N$..." albo 0, gdy jej nie ma / jest nieprawidłowa
+        private static int iterationsOf(String encodedPassword) {
+            int separator = encodedPassword.indexOf('$');
+            if (separator < 1 || separator > 8) {
+                return 0;
+            }
+            try {
+                int value = Integer.parseInt(encodedPassword.substring(0, separator));
+                return value >= 1 && value <= MAX_ITERATIONS ? value : 0;
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+
+        private Pbkdf2PasswordEncoder encoder(int hashIterations) {
+            return encoders.computeIfAbsent(hashIterations, n -> new Pbkdf2PasswordEncoder("", 16, n,
+                    Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.shop.security;
+
+import com.example.shop.config.CacheConfig;
+import com.example.shop.entity.User;
+import com.example.shop.event.UserChangedEvent;
+import com.example.shop.repository.UserRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+
+/**
+ * Krótko żyjący cache użytkowników (po username) używany przy uwierzytelnianiu każdego żądania.
+ * Wpis jest usuwany jawnie przy zmianie roli, usunięciu konta i wylogowaniu (UserChangedEvent),
+ * a w pozostałych przypadkach wygasa po auth.principal-cache.ttl-seconds.
+ */
+@Component
+public class PrincipalCache {
+
+    private final UserRepository userRepository;
+    private final Cache cache;
+
+    public PrincipalCache(UserRepository userRepository, CacheManager cacheManager) {
+        this.userRepository = userRepository;
+        this.cache = cacheManager.getCache(CacheConfig.PRINCIPALS_CACHE);
+    }
+
+    public Optional<User> getUser(String username) {
+        User cached = cache.get(username, User.class);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<User> loaded = userRepository.findByUsername(username);
+        loaded.ifPresent(user -> cache.put(username, user));
+        return loaded;
+    }
+
+    public void evict(String username) {
+        cache.evict(username);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        evict(event.getUsername());
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.shop.security;
+
+import com.example.shop.event.UserChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lista odwołanych access tokenów dla trybu bezstanowego.
+ * Trzymamy tylko to, co niezbędne: jti pojedynczych tokenów (wylogowanie - tylko ta jedna sesja) oraz
+ * "odwołaj wszystko wystawione przed" per użytkownik (zmiana roli, usunięcie konta). Wpis jest potrzebny najwyżej przez
+ * czas życia access tokenu (jwt.expiration) - potem i tak odrzuci go weryfikacja daty ważności.
+ */
+@Component
+public class TokenDenyList {
+
+    @Value("${jwt.expiration}")
+    private long jwtExpirationInMs = 900_000L;
+
+    // jti -> moment wygaśnięcia tokenu (ms)
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+
+    // username -> tokeny wystawione przed tym momentem (ms) są nieważne
+    private final Map<String, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    public void revoke(JwtClaims claims) {
+        if (claims.getTokenId() != null) {
+            revokedTokens.put(claims.getTokenId(), claims.getExpiration().getTime());
+        }
+    }
+
+    public void revokeAllFor(String username) {
+        revokedBefore.put(username, System.currentTimeMillis());
+    }
+
+    /**
+     * iat w JWT ma dokładność do sekundy, więc porównujemy z odwołaniem zaokrąglonym w dół do sekundy:
+     * token z ponownego logowania w tej samej sekundzie (np. po zmianie roli) pozostaje ważny.
+     */
+    public boolean isRevoked(JwtClaims claims) {
+        if (claims.getTokenId() != null && revokedTokens.containsKey(claims.getTokenId())) {
+            return true;
+        }
+        Long cutoff = revokedBefore.get(claims.getUsername());
+        return cutoff != null
+                && (claims.getIssuedAt() == null || claims.getIssuedAt().getTime() < cutoff / 1000 * 1000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        revokeAllFor(event.getUsername());
+    }
+
+    // Sprzątanie wpisów, które nie mogą już dotyczyć żadnego ważnego tokenu
+    @Scheduled(fixedRateString = "${auth.deny-list.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt < now);
+        revokedBefore.values().removeIf(cutoff -> cutoff + jwtExpirationInMs < now);
+    }
+
+    public int size() {
+        return revokedTokens.size() + revokedBefore.size();
+    }
+}
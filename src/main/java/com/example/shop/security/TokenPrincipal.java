@@ -0,0 +1,26 @@
+package com.example.shop.security;
+
+import java.security.Principal;
+
+/**
+ * Principal w trybie bezstanowym - zbudowany wyłącznie z podpisanych claimów tokenu, bez encji User.
+ */
+public class TokenPrincipal implements Principal {
+
+    private final Long userId;
+    private final String username;
+
+    public TokenPrincipal(Long userId, String username) {
+        this.userId = userId;
+        this.username = username;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -1,7 +1,6 @@
 package com.example.shop.security;
 
 import com.example.shop.entity.User;
-import com.example.shop.repository.UserRepository;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -10,25 +9,18 @@ import org.springframework.stereotype.Service;
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
 
-    private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
-    public UserDetailsServiceImpl(UserRepository userRepository) {
-        this.userRepository = userRepository;
+    public UserDetailsServiceImpl(PrincipalCache principalCache) {
+        this.principalCache = principalCache;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
+        // najpierw cache, dopiero przy braku wpisu - zapytanie do bazy
+        User user = principalCache.getUser(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
-        // user.getRole() ma np. "ROLE_ADMIN"
-        // ale .roles() w builderze powinno dostać "ADMIN"
-        String roleWithoutPrefix = user.getRole().replace("ROLE_", "");
-
-        return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getUsername())
-                .password(user.getPassword())
-                .roles(roleWithoutPrefix)
-                .build();
+        return new AuthenticatedUser(user);
     }
 }
@@ -0,0 +1,293 @@
+package com.example.shop.security;
+
+import com.example.shop.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Filtr Blooma istniejących nazw użytkowników. Odpowiedź "na pewno nie istnieje" jest pewna, więc rejestracja
+ * nowej nazwy i logowanie na nieistniejące konto (np. credential stuffing) w ogóle nie pytają bazy.
+ * "Może istnieje" = zwykłe zapytanie; gdy w bazie jednak nic nie ma, liczymy fałszywy alarm.
+ *
+ * Budowany przy starcie z UserRepository, uzupełniany przy rejestracji i przebudowywany co
+ * auth.username-filter.rebuild-interval-ms (usunięte konta znikają, rozmiar rośnie razem z liczbą użytkowników)
+ * albo wcześniej, gdy dopisanych nazw jest więcej, niż filtr był liczony.
+ *
+ * Filtr jest w pamięci jednej instancji - konta dodane z zewnątrz (druga instancja, skrypt SQL, narzędzia admina)
+ * zna dopiero po doczytaniu. Dlatego zanim odpowiemy "na pewno nie istnieje", doczytujemy konta o id większym
+ * niż ostatnio widziane - najwyżej raz na auth.username-filter.sync-interval-ms, więc credential stuffing
+ * dalej nie obciąża bazy. Konta z niższym id (np. wstawione z jawnym id) trafiają do filtra przy pełnej przebudowie.
+ *
+ * Nazwy porównujemy bez wielkości liter i końcowych spacji - tak jak domyślne collation MSSQL - żeby filtr
+ * nigdy nie odrzucił nazwy, którą baza uznałaby za istniejącą.
+ */
+@Component
+public class UsernameBloomFilter {
+
+    private final UserRepository userRepository;
+
+    @Value("${auth.username-filter.enabled:true}")
+    private boolean enabled = true;
+
+    // filtr liczymy na max(expected-users, 2 x liczba użytkowników) - zapas na nowe rejestracje
+    @Value("${auth.username-filter.expected-users:100000}")
+    private int expectedUsers = 100000;
+
+    @Value("${auth.username-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate = 0.01;
+
+    @Value("${auth.username-filter.sync-interval-ms:1000}")
+    private long syncIntervalMs = 1000;
+
+    // null = jeszcze nie zbudowany, wtedy każda nazwa "może istnieć"
+    private volatile Bits current;
+    // filtr w trakcie przebudowy - rejestracje w tym czasie trafiają do obu
+    private volatile Bits building;
+
+    private final AtomicBoolean stale = new AtomicBoolean();
+
+    // największe id konta, które filtr już zna, i czas ostatniego doczytania nowych kont
+    private final AtomicLong lastSeenId = new AtomicLong();
+    private final AtomicLong lastSyncAt = new AtomicLong();
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder definitelyAbsent = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+    private final LongAdder syncs = new LongAdder();
+    private volatile long lastRebuildMillis;
+
+    public UsernameBloomFilter(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        stale.set(false);
+        // building ustawiamy przed odczytem z bazy: nazwa zapisana wcześniej jest w odczycie, późniejsza w put
+        long capacity = Math.max(expectedUsers, userRepository.count() * 2);
+        Bits next = new Bits((int) Math.min(Integer.MAX_VALUE, capacity), falsePositiveRate);
+        building = next;
+        try {
+            long maxId = orZero(userRepository.findMaxId());
+            List<String> usernames = userRepository.findAllUsernames();
+            for (String username : usernames) {
+                next.put(normalize(username));
+            }
+            current = next;
+            lastSeenId.accumulateAndGet(maxId, Math::max);
+        } finally {
+            building = null;
+        }
+        rebuilds.increment();
+        lastRebuildMillis = (System.nanoTime() - start) / 1_000_000;
+    }
+
+    @Scheduled(fixedDelayString = "${auth.username-filter.rebuild-interval-ms:3600000}",
+            initialDelayString = "${auth.username-filter.rebuild-interval-ms:3600000}")
+    public void refresh() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${auth.username-filter.check-interval-ms:10000}")
+    public void rebuildIfStale() {
+        if (stale.get()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * false = takiej nazwy na pewno nie ma w bazie; true = może być (trzeba zapytać bazę).
+     */
+    public boolean mightContain(String username) {
+        Bits bits = current;
+        if (bits == null || username == null) {
+            return true;
+        }
+        checks.increment();
+        String key = normalize(username);
+        if (bits.mightContain(key)) {
+            return true;
+        }
+        // konto mogło powstać poza tą instancją - przed odmową doczytujemy nowe (i pytamy już nowszy filtr)
+        if (syncNewUsernames() && current.mightContain(key)) {
+            return true;
+        }
+        definitelyAbsent.increment();
+        return false;
+    }
+
+    /**
+     * Dopisuje do filtra konta z id większym niż ostatnio widziane. Najwyżej raz na sync-interval-ms
+     * (pozostałe wywołania w tym czasie od razu zwracają false).
+     */
+    boolean syncNewUsernames() {
+        long now = System.currentTimeMillis();
+        long last = lastSyncAt.get();
+        if (now - last < syncIntervalMs || !lastSyncAt.compareAndSet(last, now)) {
+            return false;
+        }
+        long afterId = lastSeenId.get();
+        long maxId = orZero(userRepository.findMaxId());
+        syncs.increment();
+        if (maxId <= afterId) {
+            return false;
+        }
+        userRepository.findUsernamesByIdBetween(afterId, maxId).forEach(this::put);
+        lastSeenId.accumulateAndGet(maxId, Math::max);
+        return true;
+    }
+
+    /**
+     * Wywoływane po zapisaniu nowego użytkownika.
+     */
+    public void put(String username) {
+        if (username == null) {
+            return;
+        }
+        String key = normalize(username);
+        // kolejność ma znaczenie: building czytamy przed current (patrz rebuild)
+        Bits next = building;
+        Bits bits = current;
+        if (bits != null && bits.put(key) > bits.capacity) {
+            stale.set(true);
+        }
+        if (next != null) {
+            next.put(key);
+        }
+    }
+
+    /**
+     * Filtr odpowiedział "może istnieje", a w bazie tej nazwy nie było.
+     */
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    public Map<String, Object> getStats() {
+        Bits bits = current;
+        long absent = definitelyAbsent.sum();
+        long falseHits = falsePositives.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ready", bits != null);
+        stats.put("entries", bits == null ? 0 : bits.count.sum());
+        stats.put("capacity", bits == null ? 0 : bits.capacity);
+        stats.put("bits", bits == null ? 0 : bits.size);
+        stats.put("hashFunctions", bits == null ? 0 : bits.hashes);
+        stats.put("configuredFalsePositiveRate", falsePositiveRate);
+        stats.put("expectedFalsePositiveRate", bits == null ? 0.0 : bits.expectedFalsePositiveRate());
+        stats.put("checks", checks.sum());
+        stats.put("definitelyAbsent", absent);
+        stats.put("falsePositives", falseHits);
+        // z zapytań o nieistniejące nazwy: jaki odsetek filtr mimo to przepuścił do bazy
+        stats.put("observedFalsePositiveRate", absent + falseHits == 0 ? 0.0 : (double) falseHits / (absent + falseHits));
+        stats.put("rebuilds", rebuilds.sum());
+        stats.put("syncs", syncs.sum());
+        stats.put("lastRebuildMillis", lastRebuildMillis);
+        return stats;
+    }
+
+    private static long orZero(Long id) {
+        return id == null ? 0 : id;
+    }
+
+    static String normalize(String username) {
+        return username.stripTrailing().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Tablica bitów (AtomicLongArray - dopisywanie bez blokad) i k funkcji haszujących z dwóch haszy
+     * (h1 + i * h2, Kirsch-Mitzenmacher).
+     */
+    static final class Bits {
+
+        private final AtomicLongArray words;
+        private final long size;
+        private final int hashes;
+        private final int capacity;
+        private final LongAdder count = new LongAdder();
+
+        Bits(int capacity, double falsePositiveRate) {
+            this.capacity = Math.max(capacity, 1);
+            // m = -n ln p / (ln 2)^2, k = m / n * ln 2
+            long bits = (long) Math.ceil(-this.capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int wordCount = (int) Math.max(1, (bits + 63) / 64);
+            this.words = new AtomicLongArray(wordCount);
+            this.size = wordCount * 64L;
+            this.hashes = (int) Math.max(1, Math.min(16, Math.round((double) size / this.capacity * Math.log(2))));
+        }
+
+        long put(String key) {
+            long h1 = hash(key);
+            long h2 = mix(h1 + 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, size);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long value = words.get(word);
+                while ((value & mask) == 0 && !words.compareAndSet(word, value, value | mask)) {
+                    value = words.get(word);
+                }
+            }
+            count.increment();
+            return count.sum();
+        }
+
+        boolean mightContain(String key) {
+            long h1 = hash(key);
+            long h2 = mix(h1 + 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, size);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // (zapalone bity / wszystkie)^k
+        double expectedFalsePositiveRate() {
+            long set = 0;
+            for (int i = 0; i < words.length(); i++) {
+                set += Long.bitCount(words.get(i));
+            }
+            return Math.pow((double) set / size, hashes);
+        }
+
+        // FNV-1a po znakach + mieszanie bitów (murmur3 fmix64)
+        private static long hash(String key) {
+            long h = 0xCBF29CE484222325L;
+            for (int i = 0; i < key.length(); i++) {
+                h ^= key.charAt(i);
+                h *= 0x100000001B3L;
+            }
+            return mix(h);
+        }
+
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            h *= 0xC4CEB9FE1A85EC53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -4,6 +4,11 @@ import com.example.shop.dto.LoginRequest;
 import com.example.shop.dto.RegisterRequest;
 import com.example.shop.entity.User;
 import com.example.shop.repository.UserRepository;
+import com.example.shop.security.AuthenticatedUser;
+import com.example.shop.security.PrincipalCache;
+import com.example.shop.security.TokenPrincipal;
+import com.example.shop.security.UsernameBloomFilter;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -15,22 +20,46 @@ public class AuthService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder; // wstrzykniemy przez konstruktor
+    private final UsernameBloomFilter usernameFilter;
+    private final PrincipalCache principalCache;
 
-    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                       UsernameBloomFilter usernameFilter, PrincipalCache principalCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.usernameFilter = usernameFilter;
+        this.principalCache = principalCache;
     }
 
     public User getCurrentUser() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        // User został już rozwiązany przy uwierzytelnianiu (JwtAuthenticationFilter) - nie pytamy bazy drugi raz
+        if (authentication.getPrincipal() instanceof AuthenticatedUser authenticatedUser) {
+            return authenticatedUser.getUser();
+        }
+
+        // tryb bezstanowy - encja z PrincipalCache (w stanie ustalonym bez zapytania do bazy);
+        // id z tokenu musi się zgadzać, żeby token starego konta nie dał dostępu do nowego o tej samej nazwie
+        if (authentication.getPrincipal() instanceof TokenPrincipal tokenPrincipal) {
+            return principalCache.getUser(tokenPrincipal.getName())
+                    .filter(user -> user.getId().equals(tokenPrincipal.getUserId()))
+                    .orElseThrow(() -> new RuntimeException("Użytkownik w kontekście nie istnieje"));
+        }
+
+        String username = authentication.getName();
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("Użytkownik w kontekście nie istnieje"));
     }
 
     public User register(RegisterRequest registerRequest) {
-        Optional<User> existingUser = userRepository.findByUsername(registerRequest.getUsername());
-        if (existingUser.isPresent()) {
-            throw new RuntimeException("Użytkownik o podanej nazwie już istnieje");
+        // nazwy, której filtr na pewno nie zna, nie ma w bazie - sprawdzamy tylko "może istnieje"
+        if (usernameFilter.mightContain(registerRequest.getUsername())) {
+            Optional<User> existingUser = userRepository.findByUsername(registerRequest.getUsername());
+            if (existingUser.isPresent()) {
+                throw new RuntimeException("Użytkownik o podanej nazwie już istnieje");
+            }
+            usernameFilter.recordFalsePositive();
         }
 
         // Hashowanie hasła
@@ -44,18 +73,33 @@ public class AuthService {
             user.setRole("ROLE_USER");
         }
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        usernameFilter.put(saved.getUsername());
+        return saved;
     }
 
     public User login(LoginRequest loginRequest) {
+        // logowanie na nieistniejące konto (np. credential stuffing) nie dochodzi do bazy
+        if (!usernameFilter.mightContain(loginRequest.getUsername())) {
+            throw new RuntimeException("Nieprawidłowy login lub hasło");
+        }
         User user = userRepository.findByUsername(loginRequest.getUsername())
-                .orElseThrow(() -> new RuntimeException("Nieprawidłowy login lub hasło"));
+                .orElseThrow(() -> {
+                    usernameFilter.recordFalsePositive();
+                    return new RuntimeException("Nieprawidłowy login lub hasło");
+                });
 
         // Sprawdzamy hasło przez passwordEncoder.matches
         if (!passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
             throw new RuntimeException("Nieprawidłowy login lub hasło");
         }
 
+        // Hash w starym formacie / z innym kosztem niż w konfiguracji - przeliczamy, póki znamy hasło
+        if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+            user.setPassword(passwordEncoder.encode(loginRequest.getPassword()));
+            user = userRepository.save(user);
+        }
+
         return user;
     }
 }
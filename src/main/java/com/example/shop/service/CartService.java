@@ -1,34 +1,76 @@
 package com.example.shop.service;
 
+import com.example.shop.dto.ProductQuantityRow;
 import com.example.shop.entity.CartItem;
 import com.example.shop.entity.Product;
 import com.example.shop.entity.User;
+import com.example.shop.event.ProductChangedEvent;
+import com.example.shop.event.ProductStockReleasedEvent;
+import com.example.shop.inventory.InventoryLedger;
+import com.example.shop.inventory.ReservationExpiryQueue;
 import com.example.shop.repository.CartItemRepository;
 import com.example.shop.repository.ProductRepository;
 import com.example.shop.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.Supplier;
 
 @Service
 public class CartService {
 
+    // 3 parametry na produkt (CASE + IN) - poniżej limitu 2100 parametrów MSSQL
+    static final int RESTOCK_BATCH_SIZE = 500;
+
+    // ile razy powtarzamy porcję, której rezerwacje ktoś usunął równolegle
+    private static final int RELEASE_ATTEMPTS = 3;
+
     private final CartItemRepository cartItemRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final InventoryLedger inventoryLedger;
+    private final ReservationExpiryQueue reservationExpiryQueue;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
 
     // Czas (w minutach) rezerwacji – np. 15
     private static final int RESERVATION_MINUTES = 15;
 
+    // Ile wygasłych rezerwacji sprzątamy w jednej transakcji
+    @Value("${cart.cleanup.chunk-size:500}")
+    private int cleanupChunkSize = 500;
+
     public CartService(CartItemRepository cartItemRepository,
                        ProductRepository productRepository,
-                       UserRepository userRepository) {
+                       UserRepository userRepository,
+                       InventoryLedger inventoryLedger,
+                       ReservationExpiryQueue reservationExpiryQueue,
+                       TransactionTemplate transactionTemplate,
+                       JdbcTemplate jdbcTemplate,
+                       ApplicationEventPublisher eventPublisher) {
         this.cartItemRepository = cartItemRepository;
         this.productRepository = productRepository;
         this.userRepository = userRepository;
+        this.inventoryLedger = inventoryLedger;
+        this.reservationExpiryQueue = reservationExpiryQueue;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -43,16 +85,21 @@ public class CartService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("Nie znaleziono usera o ID: " + userId));
 
-        // Walidujemy produkt
+        // Rezerwujemy stan jednym warunkowym UPDATE - równolegli kupujący nie dostają konfliktów wersji.
+        // "Gorące" produkty rezerwujemy w pamięci (InventoryLedger), a stan w bazie jest dopisywany paczkami.
+        boolean reserved = inventoryLedger.isTracked(productId)
+                ? inventoryLedger.tryReserve(productId, quantity)
+                : productRepository.decrementStockIfAvailable(productId, quantity) == 1;
+
+        // Walidujemy produkt (odczyt już po UPDATE, więc stan jest aktualny)
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Nie znaleziono produktu o ID: " + productId));
 
-        if (product.getStockQuantity() < quantity) {
+        if (!reserved) {
             throw new RuntimeException("Brak wystarczającego stanu magazynowego dla produktu: "
                         + product.getName());
         }
-        product.setStockQuantity(product.getStockQuantity() - quantity);
-        productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(productId));
 
         CartItem cartItem = new CartItem();
         cartItem.setUser(user);
@@ -61,7 +108,10 @@ public class CartService {
         cartItem.setReservedAt(LocalDateTime.now());
         cartItem.setExpiresAt(LocalDateTime.now().plusMinutes(RESERVATION_MINUTES));
 
-        return cartItemRepository.save(cartItem);
+        CartItem saved = cartItemRepository.save(cartItem);
+        // termin trafia do kolejki - rezerwacja zostanie zwolniona zaraz po expiresAt
+        reservationExpiryQueue.schedule(saved.getId(), saved.getExpiresAt());
+        return saved;
     }
 
     /**
@@ -83,26 +133,128 @@ public class CartService {
     }
 
     /**
-     * Metoda cyklicznie wywoływana przez @Scheduled,
-     * która usuwa wygasłe rezerwacje (where expiresAt < now).
-     * Można też ewentualnie "oddawać" stock do Product, jeśli wcześniej odjęliśmy.
+     * Zwalnia rezerwacje, których termin właśnie minął - wg ReservationExpiryQueue, bez skanowania tabeli.
+     * Rezerwacje zamienione w międzyczasie w zamówienie lub usunięte z koszyka są pomijane.
      */
-    @Scheduled(fixedDelay = 5 * 60_000) // co 5 minut
-    @Transactional
+    @Scheduled(fixedDelayString = "${cart.expiry.poll-interval-ms:1000}")
+    public void releaseDueReservations() {
+        List<Long> dueIds = reservationExpiryQueue.drainExpired();
+        if (dueIds.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Set<Long> restockedProducts = new HashSet<>();
+        for (int from = 0; from < dueIds.size(); from += cleanupChunkSize) {
+            List<Long> chunkIds = dueIds.subList(from, Math.min(from + cleanupChunkSize, dueIds.size()));
+            releaseInTransaction(() -> cartItemRepository.findExpiredIdsIn(chunkIds, now), restockedProducts);
+        }
+
+        if (!restockedProducts.isEmpty()) {
+            eventPublisher.publishEvent(new ProductStockReleasedEvent(restockedProducts));
+        }
+    }
+
+    /**
+     * Metoda cyklicznie wywoływana przez @Scheduled - siatka bezpieczeństwa dla ReservationExpiryQueue
+     * (np. wpisy zgubione przy awarii), która usuwa wygasłe rezerwacje (where expiresAt < now) i oddaje ich stock.
+     * Pracuje porcjami po cart.cleanup.chunk-size rezerwacji, każda porcja w osobnej krótkiej transakcji:
+     * jedno zapytanie o sumy per produkt, jeden DELETE i jeden UPDATE oddający stan wszystkim produktom porcji.
+     */
+    @Scheduled(fixedDelayString = "${cart.cleanup.interval-ms:300000}") // domyślnie co 5 minut
     public void cleanUpExpiredReservations() {
         LocalDateTime now = LocalDateTime.now();
-        List<CartItem> expiredList = cartItemRepository.findAllExpired(now);
-
-        // Przywracamy stock dla wszystkich produktów z koszyka
-         for (CartItem ci : expiredList) {
-             Product product = ci.getProduct();
-             product.setStockQuantity(product.getStockQuantity() + ci.getQuantity());
-             productRepository.save(product);
-         }
-
-        // Następnie usuwamy z bazy
-        for (CartItem ci : expiredList) {
-            cartItemRepository.delete(ci);
+        Set<Long> restockedProducts = new HashSet<>();
+
+        while (true) {
+            int chunk = releaseInTransaction(
+                    () -> cartItemRepository.findExpiredIds(now, Limit.of(cleanupChunkSize)), restockedProducts);
+            if (chunk < cleanupChunkSize) {
+                break;
+            }
+        }
+
+        if (!restockedProducts.isEmpty()) {
+            eventPublisher.publishEvent(new ProductStockReleasedEvent(restockedProducts));
         }
     }
+
+    // Jedna porcja w osobnej transakcji; produkty z InventoryLedger oddajemy w pamięci dopiero po commicie.
+    // Porcję wycofaną, bo część rezerwacji usunął ktoś inny, powtarzamy - zapytanie zwróci już tylko pozostałe.
+    // Do restockedProducts trafiają (też po commicie) id produktów, którym porcja oddała stan.
+    private int releaseInTransaction(Supplier<List<Long>> expiredIdsQuery, Set<Long> restockedProducts) {
+        for (int attempt = 1; ; attempt++) {
+            Map<Long, Integer> ledgerReleases = new HashMap<>();
+            Map<Long, Integer> restock = new HashMap<>();
+            try {
+                Integer released = transactionTemplate.execute(
+                        status -> releaseReservations(expiredIdsQuery.get(), restock, ledgerReleases));
+                ledgerReleases.forEach(inventoryLedger::release);
+                restockedProducts.addAll(restock.keySet());
+                restockedProducts.addAll(ledgerReleases.keySet());
+                return released == null ? 0 : released;
+            } catch (ConcurrentReleaseException ex) {
+                if (attempt == RELEASE_ATTEMPTS) {
+                    return 0; // reszta przy następnym przebiegu
+                }
+            }
+        }
+    }
+
+    private int releaseReservations(List<Long> expiredIds, Map<Long, Integer> restock,
+                                    Map<Long, Integer> ledgerReleases) {
+        if (expiredIds.isEmpty()) {
+            return 0;
+        }
+        List<ProductQuantityRow> quantities = cartItemRepository.sumQuantitiesByProduct(expiredIds);
+
+        // Najpierw DELETE: stan oddajemy tylko za rezerwacje usunięte przez tę transakcję. Gdy część usunął
+        // ktoś inny (druga instancja, finalizeOrder tuż po terminie), wycofujemy porcję zamiast oddać stan dwa razy.
+        if (cartItemRepository.deleteAllByIdIn(expiredIds) != expiredIds.size()) {
+            throw new ConcurrentReleaseException();
+        }
+
+        for (ProductQuantityRow row : quantities) {
+            int quantity = row.getQuantity().intValue();
+            if (inventoryLedger.isTracked(row.getProductId())) {
+                ledgerReleases.put(row.getProductId(), quantity);
+            } else {
+                restock.put(row.getProductId(), quantity);
+            }
+        }
+        increaseStock(restock);
+        return expiredIds.size();
+    }
+
+    // UPDATE ... SET stock_quantity = stock_quantity + CASE id WHEN ? THEN ? ... END WHERE id IN (...)
+    private void increaseStock(Map<Long, Integer> quantities) {
+        List<Map.Entry<Long, Integer>> entries = new ArrayList<>(quantities.entrySet());
+        for (int from = 0; from < entries.size(); from += RESTOCK_BATCH_SIZE) {
+            List<Map.Entry<Long, Integer>> batch =
+                    entries.subList(from, Math.min(from + RESTOCK_BATCH_SIZE, entries.size()));
+            List<Object> args = new ArrayList<>(batch.size() * 3);
+            for (Map.Entry<Long, Integer> entry : batch) {
+                args.add(entry.getKey());
+                args.add(entry.getValue());
+            }
+            for (Map.Entry<Long, Integer> entry : batch) {
+                args.add(entry.getKey());
+            }
+            jdbcTemplate.update(restockSql(batch.size()), args.toArray());
+        }
+    }
+
+    public static String restockSql(int products) {
+        StringBuilder sql = new StringBuilder("UPDATE products SET stock_quantity = stock_quantity + CASE id");
+        StringJoiner ids = new StringJoiner(", ", " END, version = version + 1 WHERE id IN (", ")");
+        for (int i = 0; i < products; i++) {
+            sql.append(" WHEN ? THEN ?");
+            ids.add("?");
+        }
+        return sql.append(ids).toString();
+    }
+
+    // porcja wycofana - inna transakcja usunęła część jej rezerwacji
+    private static final class ConcurrentReleaseException extends RuntimeException {
+    }
 }
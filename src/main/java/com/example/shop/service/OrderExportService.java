@@ -0,0 +1,59 @@
+package com.example.shop.service;
+
+import com.example.shop.dto.OrderHistoryRow;
+import com.example.shop.mapper.OrderMapper;
+import com.example.shop.repository.OrderRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+/**
+ * Eksport wszystkich zamówień jako NDJSON (jedno OrderDto na linię) dla analityki.
+ * Wiersze czytamy kursorem tylko do przodu i piszemy od razu do strumienia odpowiedzi,
+ * więc zużycie pamięci nie zależy od liczby zamówień.
+ */
+@Service
+public class OrderExportService {
+
+    private final OrderRepository orderRepository;
+    private final ObjectMapper objectMapper;
+
+    public OrderExportService(OrderRepository orderRepository, ObjectMapper objectMapper) {
+        this.orderRepository = orderRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Zapisuje zamówienia z zakresu [from, to) (null = bez ograniczenia) do out. Nie zamyka out.
+     * Zwraca liczbę wyeksportowanych zamówień.
+     */
+    @Transactional(readOnly = true)
+    public long exportNdjson(OutputStream out, LocalDateTime from, LocalDateTime to) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        long count;
+        try (Stream<OrderHistoryRow> rows = orderRepository.streamHistoryRows(from, to)) {
+            count = OrderMapper.forEachOrder(rows, order -> {
+                try {
+                    objectMapper.writeValue(generator, order);
+                    generator.writeRaw('\n');
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            // klient zerwał połączenie itp. - przerywamy czytanie kursora
+            throw ex.getCause();
+        }
+        generator.close();
+        return count;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.shop.service;
+
+import com.example.shop.dto.BulkOrderLineResult;
+import com.example.shop.dto.BulkOrderResultDto;
+import com.example.shop.dto.OrderRequest;
+import com.example.shop.entity.User;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Import hurtowy zamówień (kanał B2B): czyta strumieniowo tablicę JSON albo NDJSON z OrderRequestami
+ * i składa je porcjami po orders.bulk.chunk-size - każda porcja to jedna transakcja i jedno blokowanie produktów.
+ * Całe body nigdy nie jest trzymane w pamięci, tylko bieżąca porcja.
+ */
+@Service
+public class OrderImportService {
+
+    private final OrderService orderService;
+    private final Validator validator;
+    private final ObjectReader orderReader;
+
+    @Value("${orders.bulk.chunk-size:100}")
+    private int chunkSize = 100;
+
+    public OrderImportService(OrderService orderService, Validator validator, ObjectMapper objectMapper) {
+        this.orderService = orderService;
+        this.validator = validator;
+        this.orderReader = objectMapper.readerFor(OrderRequest.class);
+    }
+
+    public BulkOrderResultDto importOrders(User user, InputStream body) {
+        List<BulkOrderLineResult> results = new ArrayList<>();
+        List<OrderRequest> chunk = new ArrayList<>();
+        List<Integer> chunkIndexes = new ArrayList<>();
+        String error = null;
+        int index = 0;
+
+        // readValues obsługuje zarówno tablicę [ {...}, {...} ], jak i obiekty rozdzielone nową linią (NDJSON)
+        try (MappingIterator<OrderRequest> orders = orderReader.readValues(body)) {
+            while (orders.hasNextValue()) {
+                OrderRequest orderRequest = orders.nextValue();
+                String violations = validate(orderRequest);
+                if (violations != null) {
+                    results.add(withIndex(BulkOrderLineResult.rejected(violations), index));
+                } else {
+                    chunk.add(orderRequest);
+                    chunkIndexes.add(index);
+                    if (chunk.size() >= chunkSize) {
+                        results.addAll(processChunk(user, chunk, chunkIndexes));
+                        chunk.clear();
+                        chunkIndexes.clear();
+                    }
+                }
+                index++;
+            }
+        } catch (IOException | RuntimeException ex) {
+            // uszkodzony strumień - zamówienia przeczytane wcześniej i tak składamy
+            error = "Nieprawidłowy format danych (zamówienie nr " + index + "): " + ex.getMessage();
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(processChunk(user, chunk, chunkIndexes));
+        }
+
+        results.sort(Comparator.comparingInt(BulkOrderLineResult::getIndex));
+        int created = (int) results.stream().filter(r -> BulkOrderLineResult.CREATED.equals(r.getStatus())).count();
+        return new BulkOrderResultDto(created, results.size() - created, error, results);
+    }
+
+    // Porcja, która wycofała się w całości (np. błąd bazy), nie przerywa importu - jej zamówienia mają status FAILED
+    private List<BulkOrderLineResult> processChunk(User user, List<OrderRequest> chunk, List<Integer> indexes) {
+        List<BulkOrderLineResult> results;
+        try {
+            results = orderService.createOrders(user, chunk);
+        } catch (RuntimeException ex) {
+            results = new ArrayList<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                results.add(new BulkOrderLineResult(0, BulkOrderLineResult.FAILED, null, ex.getMessage()));
+            }
+        }
+        for (int i = 0; i < results.size(); i++) {
+            results.get(i).setIndex(indexes.get(i));
+        }
+        return results;
+    }
+
+    private String validate(OrderRequest orderRequest) {
+        Set<ConstraintViolation<OrderRequest>> violations = validator.validate(orderRequest);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private static BulkOrderLineResult withIndex(BulkOrderLineResult result, int index) {
+        result.setIndex(index);
+        return result;
+    }
+}
@@ -1,17 +1,33 @@
 package com.example.shop.service;
 
+import com.example.shop.dto.BulkOrderLineResult;
+import com.example.shop.dto.OrderDto;
 import com.example.shop.dto.OrderItemRequest;
 import com.example.shop.dto.OrderRequest;
 import com.example.shop.entity.*;
+import com.example.shop.event.ProductChangedEvent;
+import com.example.shop.inventory.InventoryLedger;
+import com.example.shop.mapper.OrderMapper;
 import com.example.shop.repository.CartItemRepository;
 import com.example.shop.repository.OrderRepository;
 import com.example.shop.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 @Service
@@ -20,39 +36,138 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final ProductRepository productRepository;
     private final CartItemRepository cartItemRepository;
+    private final InventoryLedger inventoryLedger;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public OrderService(OrderRepository orderRepository, ProductRepository productRepository, CartItemRepository cartItemRepository) {
+    // Domyślny i maksymalny rozmiar strony historii zamówień
+    @Value("${orders.page.default-size:20}")
+    private int defaultPageSize = 20;
+
+    @Value("${orders.page.max-size:100}")
+    private int maxPageSize = 100;
+
+    public OrderService(OrderRepository orderRepository, ProductRepository productRepository,
+                        CartItemRepository cartItemRepository, InventoryLedger inventoryLedger,
+                        ApplicationEventPublisher eventPublisher) {
         this.orderRepository = orderRepository;
         this.productRepository = productRepository;
         this.cartItemRepository = cartItemRepository;
+        this.inventoryLedger = inventoryLedger;
+        this.eventPublisher = eventPublisher;
     }
 
+    /**
+     * Składa zamówienie:
+     * - scala pozycje z tym samym produktem,
+     * - pobiera wszystkie produkty jednym zapytaniem (z blokadą wierszy w kolejności id),
+     * - sprawdza stan całego zamówienia, zanim cokolwiek zmieni,
+     * - zdejmuje stan na zablokowanych encjach (UPDATE-y idą paczką przy flush).
+     */
     @Transactional
     public Order createOrder(User user, OrderRequest orderRequest) {
+        Map<Long, Integer> quantities = mergeLines(orderRequest);
+        Map<Long, Product> products = loadProducts(quantities.keySet());
+        return orderRepository.save(buildOrder(user, quantities, products));
+    }
+
+    /**
+     * Składa porcję zamówień w jednej transakcji (import hurtowy, POST /api/orders/bulk).
+     * Produkty całej porcji blokujemy jednym zapytaniem, a zamówienie, którego nie da się złożyć
+     * (brak produktu / stanu), jest odrzucane bez wpływu na pozostałe.
+     * Wyniki są w tej samej kolejności co requesty (index ustawia wywołujący).
+     */
+    @Transactional
+    public List<BulkOrderLineResult> createOrders(User user, List<OrderRequest> orderRequests) {
+        List<Map<Long, Integer>> merged = new ArrayList<>();
+        Set<Long> productIds = new HashSet<>();
+        for (OrderRequest orderRequest : orderRequests) {
+            Map<Long, Integer> quantities = mergeLines(orderRequest);
+            merged.add(quantities);
+            productIds.addAll(quantities.keySet());
+        }
+
+        Map<Long, Product> products = loadProducts(productIds);
+
+        List<Order> orders = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        for (Map<Long, Integer> quantities : merged) {
+            try {
+                orders.add(buildOrder(user, quantities, products));
+                errors.add(null);
+            } catch (RuntimeException ex) {
+                orders.add(null);
+                errors.add(ex.getMessage());
+            }
+        }
+
+        // zapis wszystkich zamówień porcji naraz - INSERT-y pozycji idą paczkami JDBC
+        orderRepository.saveAll(orders.stream().filter(Objects::nonNull).toList());
+
+        List<BulkOrderLineResult> results = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            results.add(orders.get(i) != null
+                    ? BulkOrderLineResult.created(orders.get(i).getId())
+                    : BulkOrderLineResult.rejected(errors.get(i)));
+        }
+        return results;
+    }
+
+    // Scalamy pozycje z tym samym produktem (kolejność pierwszego wystąpienia w requeście)
+    private static Map<Long, Integer> mergeLines(OrderRequest orderRequest) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (OrderItemRequest itemReq : orderRequest.getItems()) {
+            quantities.merge(itemReq.getProductId(), itemReq.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    // Buduje zamówienie na już pobranych produktach. Rzuca wyjątek, zanim zmieni jakikolwiek stan.
+    private Order buildOrder(User user, Map<Long, Integer> quantities, Map<Long, Product> products) {
+
+        // Walidacja całego zamówienia przed jakąkolwiek zmianą stanu
+        Map<Long, Integer> trackedQuantities = new HashMap<>();
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Product product = products.get(line.getKey());
+            if (product == null) {
+                throw new RuntimeException("Produkt nie istnieje");
+            }
+            if (inventoryLedger.isTracked(product.getId())) {
+                trackedQuantities.put(product.getId(), line.getValue());
+            } else if (product.getStockQuantity() < line.getValue()) {
+                throw outOfStock(product);
+            }
+        }
+
+        // produkty z InventoryLedger rezerwujemy w pamięci naraz (cofane przy rollbacku), pozostałe są już zablokowane
+        if (!trackedQuantities.isEmpty() && !inventoryLedger.tryReserveAll(trackedQuantities)) {
+            Long shortId = trackedQuantities.entrySet().stream()
+                    .filter(line -> inventoryLedger.available(line.getKey()) < line.getValue())
+                    .map(Map.Entry::getKey)
+                    .findFirst()
+                    .orElse(trackedQuantities.keySet().iterator().next());
+            throw outOfStock(products.get(shortId));
+        }
 
         // Tworzymy puste zamówienie
         Order order = new Order();
         order.setUser(user);
 
-        Set<OrderItem> items = new HashSet<>();
+        Set<OrderItem> items = new LinkedHashSet<>(); // zachowujemy kolejność pozycji z requestu
 
-        for (OrderItemRequest itemReq : orderRequest.getItems()) {
-            // Szukamy produktu w bazie
-            Product product = productRepository.findById(itemReq.getProductId())
-                    .orElseThrow(() -> new RuntimeException("Produkt nie istnieje"));
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Product product = products.get(line.getKey());
+            int quantity = line.getValue();
 
-            if (product.getStockQuantity() < itemReq.getQuantity()) {
-                throw new RuntimeException("Brak wystarczającego stanu magazynowego dla produktu: "
-                        + product.getName());
+            if (!trackedQuantities.containsKey(product.getId())) {
+                product.setStockQuantity(product.getStockQuantity() - quantity);
             }
-            product.setStockQuantity(product.getStockQuantity() - itemReq.getQuantity());
-            productRepository.save(product);
+            eventPublisher.publishEvent(new ProductChangedEvent(product.getId()));
 
             // Tworzymy obiekt OrderItem
             OrderItem orderItem = new OrderItem();
             orderItem.setOrder(order);
             orderItem.setProduct(product);
-            orderItem.setQuantity(itemReq.getQuantity());
+            orderItem.setQuantity(quantity);
             // zapamiętujemy cenę w chwili zamówienia
             orderItem.setPriceAtOrderTime(product.getPrice());
 
@@ -60,7 +175,33 @@ public class OrderService {
         }
 
         order.setItems(items);
-        return orderRepository.save(order);
+        return order;
+    }
+
+    private static RuntimeException outOfStock(Product product) {
+        return new RuntimeException("Brak wystarczającego stanu magazynowego dla produktu: " + product.getName());
+    }
+
+    // Produkty z ledgera czytamy bez blokady (ich stan jest w pamięci), pozostałe - z blokadą w kolejności id
+    private Map<Long, Product> loadProducts(Set<Long> productIds) {
+        List<Long> lockedIds = new ArrayList<>();
+        List<Long> trackedIds = new ArrayList<>();
+        for (Long productId : productIds) {
+            if (inventoryLedger.isTracked(productId)) {
+                trackedIds.add(productId);
+            } else {
+                lockedIds.add(productId);
+            }
+        }
+
+        Map<Long, Product> products = new HashMap<>();
+        if (!lockedIds.isEmpty()) {
+            productRepository.findAllByIdInForUpdate(lockedIds).forEach(p -> products.put(p.getId(), p));
+        }
+        if (!trackedIds.isEmpty()) {
+            productRepository.findAllById(trackedIds).forEach(p -> products.put(p.getId(), p));
+        }
+        return products;
     }
 
     @Transactional
@@ -76,7 +217,7 @@ public class OrderService {
         Order order = new Order();
         order.setUser(user);
 
-        Set<OrderItem> orderItems = new HashSet<>();
+        Set<OrderItem> orderItems = new LinkedHashSet<>();
 
         for (CartItem ci : cartItems) {
             // Sprawdzamy, czy rezerwacja jeszcze nie wygasła
@@ -117,14 +258,38 @@ public class OrderService {
         return order;
     }
 
-    public List<Order> getAllOrdersForUser(User user) {
-        return orderRepository.findAll().stream()
-                .filter(o -> o.getUser().getId().equals(user.getId()))
-                .toList();
+    /**
+     * Historia zamówień usera w postaci DTO - zapytanie projekcyjne prosto do OrderDto,
+     * bez budowania zarządzanych encji Order/OrderItem/Product/User.
+     */
+    @Transactional(readOnly = true)
+    public List<OrderDto> getOrderHistoryForUser(User user) {
+        return OrderMapper.fromHistoryRows(orderRepository.findHistoryRowsByUserId(user.getId()));
+    }
+
+    /**
+     * Zwraca stronę historii zamówień usera (najnowsze najpierw), opcjonalnie zawężoną do zakresu dat [from, to).
+     * Zapytanie filtruje po user_id w bazie, więc koszt zależy tylko od liczby zamówień tego usera.
+     * Najpierw pobieramy id ze strony, potem jednym zapytaniem projekcyjnym ich pozycje.
+     */
+    @Transactional(readOnly = true)
+    public Slice<OrderDto> getOrdersForUser(User user, LocalDateTime from, LocalDateTime to,
+                                            Integer page, Integer size) {
+        int pageNumber = page == null ? 0 : Math.max(page, 0);
+        int pageSize = size == null ? defaultPageSize : Math.min(Math.max(size, 1), maxPageSize);
+        Slice<Long> ids = orderRepository.findIdSliceForUser(user.getId(), from, to,
+                PageRequest.of(pageNumber, pageSize));
+        if (ids.getContent().isEmpty()) {
+            return new SliceImpl<>(List.of(), ids.getPageable(), false);
+        }
+
+        List<OrderDto> orders = OrderMapper.fromHistoryRows(
+                orderRepository.findHistoryRowsByOrderIds(ids.getContent()));
+        return new SliceImpl<>(orders, ids.getPageable(), ids.hasNext());
     }
 
     public Order getOrderById(Long orderId) {
-        return orderRepository.findById(orderId)
+        return orderRepository.findWithItemsById(orderId)
                 .orElseThrow(() -> new RuntimeException("Zamówienie o id " + orderId + " nie istnieje"));
     }
 }
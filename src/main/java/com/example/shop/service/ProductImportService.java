@@ -0,0 +1,363 @@
+package com.example.shop.service;
+
+import com.example.shop.dto.ImportRowError;
+import com.example.shop.dto.ProductImportResultDto;
+import com.example.shop.dto.ProductImportRow;
+import com.example.shop.event.ProductImportEvent;
+import com.example.shop.inventory.InventoryLedger;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Import hurtowy katalogu (CSV albo NDJSON). Plik czytamy strumieniowo (NDJSON linia po linii, CSV rekord
+ * po rekordzie parserem jackson-dataformat-csv), a produkty zapisujemy paczkami JDBC
+ * po products.import.batch-size - jedna transakcja na paczkę, bez encji i persistence context.
+ * Błędny wiersz trafia do raportu i nie przerywa importu; w pamięci jest tylko bieżąca paczka.
+ * Po każdej paczce publikujemy ProductImportEvent (czyszczenie cache), a po całym imporcie - jeden
+ * ProductImportEvent(finished), na który indeksy wyszukiwania i podpowiedzi przebudowują się raz.
+ *
+ * Wiersz z id aktualizuje istniejący produkt (upsert po id), wiersz bez id dodaje nowy.
+ */
+@Service
+public class ProductImportService {
+
+    static final String INSERT_SQL =
+            "INSERT INTO products (name, price, stock_quantity, version) VALUES (?, ?, ?, 0)";
+
+    // brak stockQuantity w wierszu = stan bez zmian
+    static final String UPDATE_SQL = "UPDATE products SET name = ?, price = ?, " +
+            "stock_quantity = COALESCE(?, stock_quantity), version = version + 1 WHERE id = ?";
+
+    // Separator ',', pole w cudzysłowach może zawierać przecinki i znaki nowej linii, "" to jeden cudzysłów
+    private static final CsvMapper CSV_MAPPER = CsvMapper.builder()
+            .enable(CsvParser.Feature.SKIP_EMPTY_LINES)
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final InventoryLedger inventoryLedger;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectReader rowReader;
+
+    @Value("${products.import.batch-size:1000}")
+    private int batchSize = 1000;
+
+    @Value("${products.import.max-reported-errors:1000}")
+    private int maxReportedErrors = 1000;
+
+    public ProductImportService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                InventoryLedger inventoryLedger, ObjectMapper objectMapper,
+                                ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.inventoryLedger = inventoryLedger;
+        this.eventPublisher = eventPublisher;
+        this.rowReader = objectMapper.readerFor(ProductImportRow.class);
+    }
+
+    /**
+     * CSV z nagłówkiem, np. "name,price,stockQuantity" albo "id,name,price,stockQuantity" (kolejność dowolna).
+     */
+    public ProductImportResultDto importCsv(InputStream body) throws IOException {
+        return importLines(body, true);
+    }
+
+    /**
+     * NDJSON - jeden produkt na linię, np. {"name":"Kabel","price":9.99,"stockQuantity":100}.
+     */
+    public ProductImportResultDto importNdjson(InputStream body) throws IOException {
+        return importLines(body, false);
+    }
+
+    private ProductImportResultDto importLines(InputStream body, boolean csv) throws IOException {
+        ProductImportResultDto result = new ProductImportResultDto();
+        try {
+            readLines(body, csv, result);
+        } finally {
+            // także po błędzie w połowie pliku - zapisane już paczki muszą trafić do indeksów
+            if (result.getInserted() + result.getUpdated() > 0) {
+                eventPublisher.publishEvent(new ProductImportEvent(true));
+            }
+        }
+        return result;
+    }
+
+    private void readLines(InputStream body, boolean csv, ProductImportResultDto result) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        skipBom(reader);
+        List<ParsedRow> batch = new ArrayList<>(batchSize);
+        if (csv) {
+            readCsv(reader, batch, result);
+        } else {
+            readNdjson(reader, batch, result);
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch, result);
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, List<ParsedRow> batch, ProductImportResultDto result)
+            throws IOException {
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (!line.isBlank()) {
+                String json = line;
+                addRow(batch, result, lineNumber, () -> parseJsonRow(json));
+            }
+        }
+    }
+
+    // Rekord CSV może zajmować kilka linii (znak nowej linii w polu w cudzysłowach), więc numer linii
+    // bierzemy z parsera - to linia, w której rekord się zaczyna
+    private void readCsv(BufferedReader reader, List<ParsedRow> batch, ProductImportResultDto result)
+            throws IOException {
+        Map<String, Integer> columns = null;
+        try (JsonParser parser = CSV_MAPPER.createParser(reader)) {
+            long lineNumber = 0;
+            // bez schematu parser zwraca każdy rekord jako tablicę pól
+            while (true) {
+                List<String> values = new ArrayList<>();
+                try {
+                    if (parser.nextToken() != JsonToken.START_ARRAY) {
+                        break;
+                    }
+                    while (parser.nextToken() == JsonToken.VALUE_STRING) {
+                        if (values.isEmpty()) {
+                            lineNumber = parser.currentTokenLocation().getLineNr();
+                        }
+                        values.add(parser.getText());
+                    }
+                } catch (JsonProcessingException ex) {
+                    // np. niedomknięty cudzysłów - dalszych rekordów nie da się wiarygodnie odczytać,
+                    // zapisane już paczki zostają
+                    reportError(result, parser.currentLocation().getLineNr(),
+                            "Nieprawidłowy CSV: " + ex.getOriginalMessage());
+                    break;
+                }
+                if (values.stream().allMatch(String::isBlank)) {
+                    continue;
+                }
+                if (columns == null) {
+                    // zły nagłówek przerywa cały import (400) - bez niego żaden wiersz nie ma sensu
+                    columns = parseCsvHeader(values);
+                    continue;
+                }
+                Map<String, Integer> header = columns;
+                addRow(batch, result, lineNumber, () -> parseCsvRow(values, header));
+            }
+        }
+    }
+
+    private void addRow(List<ParsedRow> batch, ProductImportResultDto result, long lineNumber,
+                        Supplier<ProductImportRow> parser) {
+        try {
+            ProductImportRow row = parser.get();
+            validate(row);
+            batch.add(new ParsedRow(lineNumber, row));
+        } catch (RuntimeException ex) {
+            reportError(result, lineNumber, ex.getMessage());
+        }
+        if (batch.size() >= batchSize) {
+            writeBatch(batch, result);
+            batch.clear();
+        }
+    }
+
+    // BOM z Excela
+    private static void skipBom(BufferedReader reader) throws IOException {
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
+        }
+    }
+
+    // Cała paczka w jednej transakcji; gdy baza odrzuci paczkę, zapisujemy jej wiersze pojedynczo,
+    // żeby wskazać błędne wiersze i nie tracić poprawnych
+    private void writeBatch(List<ParsedRow> batch, ProductImportResultDto result) {
+        try {
+            apply(transactionTemplate.execute(status -> saveRows(batch)), result);
+            syncLedger(batch);
+        } catch (DataAccessException ex) {
+            for (ParsedRow row : batch) {
+                try {
+                    apply(transactionTemplate.execute(status -> saveRows(List.of(row))), result);
+                    syncLedger(List.of(row));
+                } catch (DataAccessException rowEx) {
+                    reportError(result, row.line, "Błąd zapisu: " + rowEx.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    // liczniki zmieniamy dopiero po commicie paczki
+    private void apply(BatchOutcome outcome, ProductImportResultDto result) {
+        result.setInserted(result.getInserted() + outcome.inserted);
+        result.setUpdated(result.getUpdated() + outcome.updated);
+        outcome.missing.forEach(error -> reportError(result, error.getLine(), error.getError()));
+    }
+
+    private BatchOutcome saveRows(List<ParsedRow> rows) {
+        List<ParsedRow> inserts = new ArrayList<>();
+        List<ParsedRow> updates = new ArrayList<>();
+        for (ParsedRow row : rows) {
+            (row.product.getId() == null ? inserts : updates).add(row);
+        }
+
+        BatchOutcome outcome = new BatchOutcome();
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts, inserts.size(), (ps, row) -> {
+                ps.setString(1, row.product.getName());
+                ps.setDouble(2, row.product.getPrice());
+                ps.setInt(3, row.product.getStockQuantity() == null ? 0 : row.product.getStockQuantity());
+            });
+            outcome.inserted = inserts.size();
+        }
+
+        if (!updates.isEmpty()) {
+            int[][] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, updates, updates.size(), (ps, row) -> {
+                ps.setString(1, row.product.getName());
+                ps.setDouble(2, row.product.getPrice());
+                setNullableInt(ps, 3, row.product.getStockQuantity());
+                ps.setLong(4, row.product.getId());
+            });
+            for (int i = 0; i < updates.size(); i++) {
+                // 0 = brak wiersza o tym id (SUCCESS_NO_INFO traktujemy jak sukces)
+                if (counts[0][i] == 0) {
+                    outcome.missing.add(new ImportRowError(updates.get(i).line,
+                            "Produkt o id " + updates.get(i).product.getId() + " nie istnieje"));
+                } else {
+                    outcome.updated++;
+                }
+            }
+        }
+
+        // jedno zdarzenie na paczkę - cache produktów czyszczony po commicie
+        eventPublisher.publishEvent(new ProductImportEvent(false));
+        return outcome;
+    }
+
+    // nowy stan "gorących" produktów nadpisuje stan w InventoryLedger (jak przy PATCH /api/products/{id}/stock)
+    private void syncLedger(List<ParsedRow> batch) {
+        for (ParsedRow row : batch) {
+            Long id = row.product.getId();
+            if (id != null && row.product.getStockQuantity() != null && inventoryLedger.isTracked(id)) {
+                inventoryLedger.track(id, row.product.getStockQuantity());
+            }
+        }
+    }
+
+    private void reportError(ProductImportResultDto result, long line, String error) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < maxReportedErrors) {
+            result.getErrors().add(new ImportRowError(line, error));
+        }
+    }
+
+    private ProductImportRow parseJsonRow(String line) {
+        try {
+            return rowReader.readValue(line);
+        } catch (JsonProcessingException ex) {
+            throw new RuntimeException("Nieprawidłowy JSON: " + ex.getOriginalMessage());
+        }
+    }
+
+    private static void validate(ProductImportRow row) {
+        if (row.getName() == null || row.getName().isBlank()) {
+            throw new RuntimeException("Brak nazwy produktu");
+        }
+        if (row.getPrice() == null || row.getPrice() < 0) {
+            throw new RuntimeException("Cena musi być liczbą nieujemną");
+        }
+        if (row.getStockQuantity() != null && row.getStockQuantity() < 0) {
+            throw new RuntimeException("Ilość sztuk nie może być mniejsza od 0");
+        }
+    }
+
+    static Map<String, Integer> parseCsvHeader(List<String> names) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT).replace("_", ""), i);
+        }
+        if (!columns.containsKey("name") || !columns.containsKey("price")) {
+            throw new RuntimeException("Nagłówek CSV musi zawierać kolumny name i price");
+        }
+        return columns;
+    }
+
+    static ProductImportRow parseCsvRow(List<String> values, Map<String, Integer> columns) {
+        ProductImportRow row = new ProductImportRow();
+        try {
+            String id = column(values, columns, "id");
+            String stock = column(values, columns, "stockquantity");
+            String price = column(values, columns, "price");
+            row.setId(id == null ? null : Long.valueOf(id));
+            row.setName(column(values, columns, "name"));
+            row.setPrice(price == null ? null : Double.valueOf(price));
+            row.setStockQuantity(stock == null ? null : Integer.valueOf(stock));
+        } catch (NumberFormatException ex) {
+            throw new RuntimeException("Nieprawidłowa liczba: " + ex.getMessage());
+        }
+        return row;
+    }
+
+    private static String column(List<String> values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static void setNullableInt(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+
+    private static final class BatchOutcome {
+        private long inserted;
+        private long updated;
+        private final List<ImportRowError> missing = new ArrayList<>();
+    }
+
+    private static final class ParsedRow {
+        private final long line;
+        private final ProductImportRow product;
+
+        private ParsedRow(long line, ProductImportRow product) {
+            this.line = line;
+            this.product = product;
+        }
+    }
+}
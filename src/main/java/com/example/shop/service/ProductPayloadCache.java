@@ -0,0 +1,139 @@
+package com.example.shop.service;
+
+import com.example.shop.entity.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gotowe bajty odpowiedzi dla listy produktów i pojedynczych produktów: JSON + (dla większych) wersje gzip i deflate.
+ * Klucz to wersja katalogu / @Version produktu, więc kolejne żądania o niezmieniony katalog są obsługiwane
+ * bez serializacji i kompresji - kontroler tylko wypisuje gotową tablicę bajtów.
+ */
+@Component
+public class ProductPayloadCache {
+
+    private final ObjectMapper objectMapper;
+
+    // mniejszych odpowiedzi nie kompresujemy (nagłówek gzip / deflate + CPU klienta nie opłacają się)
+    @Value("${products.payload.gzip-min-bytes:1024}")
+    private int gzipMinBytes = 1024;
+
+    private final Cache<Long, Payload> productPayloads;
+
+    // lista to jeden wpis; source = instancja listy z cache, z której powstał (porównanie referencji, O(1))
+    private volatile Payload listPayload;
+
+    private final AtomicLong serializations = new AtomicLong();
+
+    public ProductPayloadCache(ObjectMapper objectMapper,
+                               @Value("${products.cache.max-size:10000}") long maxSize) {
+        this.objectMapper = objectMapper;
+        this.productPayloads = Caffeine.newBuilder().maximumSize(maxSize).build();
+    }
+
+    /**
+     * Bajty całej listy. Ta sama instancja listy (z cache ProductService) -> ten sam wpis bez liczenia wersji;
+     * nowa instancja z tą samą wersją katalogu (np. po TTL) -> te same bajty.
+     */
+    public Payload forList(List<Product> products) {
+        Payload current = listPayload;
+        if (current != null && current.source == products) {
+            return current;
+        }
+        String version = "c" + Long.toHexString(ProductService.catalogVersion(products));
+        if (current != null && current.version.equals(version)) {
+            current = current.withSource(products);
+        } else {
+            current = build(version, products, products);
+        }
+        listPayload = current;
+        return current;
+    }
+
+    public Payload forProduct(Product product) {
+        String version = product.getId() + "-" + product.getVersion();
+        Payload cached = productPayloads.getIfPresent(product.getId());
+        if (cached != null && cached.version.equals(version)) {
+            return cached;
+        }
+        Payload payload = build(version, product, null);
+        productPayloads.put(product.getId(), payload);
+        return payload;
+    }
+
+    public long getSerializations() {
+        return serializations.get();
+    }
+
+    private Payload build(String version, Object body, Object source) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            serializations.incrementAndGet();
+            boolean compress = json.length >= gzipMinBytes;
+            return new Payload(version, json, compress ? gzip(json) : null, compress ? deflate(json) : null, source);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return out.toByteArray();
+    }
+
+    // "deflate" w HTTP to strumień zlib (RFC 1950) - tak pisze DeflaterOutputStream z domyślnym Deflaterem
+    private static byte[] deflate(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(out)) {
+            deflate.write(json);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Gotowa odpowiedź. gzip i deflate == null, gdy JSON jest za mały, żeby go kompresować.
+     */
+    public static final class Payload {
+        @Getter
+        private final String version;
+        @Getter
+        private final byte[] json;
+        @Getter
+        private final byte[] gzip;
+        @Getter
+        private final byte[] deflate;
+        private final Object source;
+
+        private Payload(String version, byte[] json, byte[] gzip, byte[] deflate, Object source) {
+            this.version = version;
+            this.json = json;
+            this.gzip = gzip;
+            this.deflate = deflate;
+            this.source = source;
+        }
+
+        private Payload withSource(Object newSource) {
+            return new Payload(version, json, gzip, deflate, newSource);
+        }
+    }
+}
@@ -1,35 +1,84 @@
 package com.example.shop.service;
 
+import com.example.shop.config.CacheConfig;
+import com.example.shop.dto.ProductPageDto;
 import com.example.shop.entity.Product;
+import com.example.shop.event.ProductChangedEvent;
+import com.example.shop.inventory.InventoryLedger;
 import com.example.shop.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
+import java.util.Objects;
 
 @Service
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final InventoryLedger inventoryLedger;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ProductService(ProductRepository productRepository) {
+    // Domyślny i maksymalny rozmiar strony przy stronicowaniu kursorowym
+    @Value("${products.page.default-size:20}")
+    private int defaultPageSize = 20;
+
+    @Value("${products.page.max-size:100}")
+    private int maxPageSize = 100;
+
+    public ProductService(ProductRepository productRepository, InventoryLedger inventoryLedger,
+                          ApplicationEventPublisher eventPublisher) {
         this.productRepository = productRepository;
+        this.inventoryLedger = inventoryLedger;
+        this.eventPublisher = eventPublisher;
     }
 
+    /**
+     * Cała lista produktów - z cache (inwalidowany przez ProductChangedEvent, najpóźniej po TTL).
+     */
+    @Cacheable(CacheConfig.PRODUCT_LIST_CACHE)
     public List<Product> getAllProducts() {
-        return productRepository.findAll();
+        return List.copyOf(productRepository.findAll());
+    }
+
+    /**
+     * Zwraca jedną stronę katalogu, zaczynając za produktem wskazanym przez kursor.
+     * Zapytanie zawsze idzie po indeksie PK (id > ?), więc koszt nie rośnie wraz z "głębokością" strony.
+     */
+    public ProductPageDto getProductsPage(String cursor, Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.min(Math.max(size, 1), maxPageSize);
+        long afterId = cursor == null || cursor.isBlank() ? 0L : decodeCursor(cursor);
+
+        // pobieramy o jeden rekord więcej, żeby wiedzieć, czy istnieje następna strona
+        List<Product> rows = productRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(pageSize + 1));
+        if (rows.size() <= pageSize) {
+            return new ProductPageDto(rows, null);
+        }
+
+        List<Product> page = rows.subList(0, pageSize);
+        return new ProductPageDto(page, encodeCursor(page.getLast().getId()));
     }
 
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS_CACHE, key = "#id")
     public Product getProductById(Long id) {
         return productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Produkt nie istnieje"));
     }
 
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(saved.getId()));
+        return saved;
     }
 
     public void deleteProduct(Long id) {
         productRepository.deleteById(id);
+        eventPublisher.publishEvent(new ProductChangedEvent(id));
     }
 
     public Product updateStockQuantity(Long productId, int newQuantity) {
@@ -37,6 +86,43 @@ public class ProductService {
                 .orElseThrow(() -> new RuntimeException("Produkt nie istnieje"));
 
         product.setStockQuantity(newQuantity);
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        // ręczne ustawienie stanu nadpisuje też stan w ledgerze (niezapisane rezerwacje są już nieaktualne)
+        if (inventoryLedger.isTracked(productId)) {
+            inventoryLedger.track(productId, newQuantity);
+        }
+        eventPublisher.publishEvent(new ProductChangedEvent(productId));
+        return saved;
+    }
+
+    /**
+     * Wersja zestawu produktów - skrót z par (id, @Version). Zmienia się przy dodaniu, usunięciu i każdej zmianie
+     * produktu (także zbiorcze UPDATE-y stanu podbijają wersję), więc nadaje się na ETag listy.
+     */
+    public static long catalogVersion(List<Product> products) {
+        long hash = products.size();
+        for (Product product : products) {
+            hash = 31 * hash + Objects.hashCode(product.getId());
+            hash = 31 * hash + Objects.hashCode(product.getVersion());
+        }
+        return hash;
+    }
+
+    // Kursor jest nieprzezroczysty dla klienta - to zakodowane id ostatniego produktu ze strony
+    static String encodeCursor(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("p:" + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static long decodeCursor(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith("p:")) {
+                throw new IllegalArgumentException();
+            }
+            return Long.parseLong(decoded.substring(2));
+        } catch (IllegalArgumentException ex) {
+            throw new RuntimeException("Nieprawidłowy kursor stronicowania");
+        }
     }
 }
@@ -3,6 +3,7 @@ package com.example.shop.service;
 import com.example.shop.entity.RefreshToken;
 import com.example.shop.entity.User;
 import com.example.shop.repository.RefreshTokenRepository;
+import com.example.shop.security.PrincipalCache;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -17,9 +18,11 @@ public class RefreshTokenService {
     private Long refreshTokenDurationMs; // np. 604800000 (7 dni w ms)
 
     private final RefreshTokenRepository refreshTokenRepository;
+    private final PrincipalCache principalCache;
 
-    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository) {
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, PrincipalCache principalCache) {
         this.refreshTokenRepository = refreshTokenRepository;
+        this.principalCache = principalCache;
     }
 
     /**
@@ -53,9 +56,13 @@ public class RefreshTokenService {
     }
 
     /**
-     * Usuwa token z bazy (np. przy wylogowaniu).
+     * Usuwa token z bazy (np. przy wylogowaniu) i usuwa usera z cache uwierzytelniania.
+     * Bez UserChangedEvent - ten odwołałby wszystkie sesje usera, a wylogowanie kończy tylko jedną
+     * (access token tej sesji odwołuje AuthController).
      */
     public void deleteRefreshToken(String token) {
+        refreshTokenRepository.findByToken(token)
+                .ifPresent(rt -> principalCache.evict(rt.getUser().getUsername()));
         refreshTokenRepository.deleteByToken(token);
     }
 
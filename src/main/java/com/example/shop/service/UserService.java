@@ -0,0 +1,76 @@
+package com.example.shop.service;
+
+import com.example.shop.entity.User;
+import com.example.shop.event.UserChangedEvent;
+import com.example.shop.repository.CartItemRepository;
+import com.example.shop.repository.OrderRepository;
+import com.example.shop.repository.RefreshTokenRepository;
+import com.example.shop.repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Set;
+
+/**
+ * Operacje administracyjne na kontach użytkowników.
+ * Każda zmiana publikuje UserChangedEvent, żeby usunąć usera z cache uwierzytelniania.
+ */
+@Service
+public class UserService {
+
+    private static final Set<String> ALLOWED_ROLES = Set.of("ROLE_USER", "ROLE_ADMIN");
+
+    private final UserRepository userRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final OrderRepository orderRepository;
+    private final CartItemRepository cartItemRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public UserService(UserRepository userRepository,
+                       RefreshTokenRepository refreshTokenRepository,
+                       OrderRepository orderRepository,
+                       CartItemRepository cartItemRepository,
+                       ApplicationEventPublisher eventPublisher) {
+        this.userRepository = userRepository;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.orderRepository = orderRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Transactional
+    public User changeRole(Long userId, String role) {
+        String normalizedRole = role.startsWith("ROLE_") ? role : "ROLE_" + role;
+        if (!ALLOWED_ROLES.contains(normalizedRole)) {
+            throw new RuntimeException("Nieznana rola: " + role);
+        }
+
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("Nie znaleziono usera o ID: " + userId));
+        user.setRole(normalizedRole);
+        User saved = userRepository.save(user);
+
+        eventPublisher.publishEvent(new UserChangedEvent(user.getUsername()));
+        return saved;
+    }
+
+    /**
+     * Usuwa konto wraz z refresh tokenami.
+     * Konta z historią zamówień lub aktywnym koszykiem nie usuwamy (rezerwacje / historia sprzedaży).
+     */
+    @Transactional
+    public void deleteUser(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("Nie znaleziono usera o ID: " + userId));
+
+        if (orderRepository.existsByUserId(userId) || cartItemRepository.existsByUserId(userId)) {
+            throw new RuntimeException("Nie można usunąć użytkownika, który ma zamówienia lub aktywny koszyk");
+        }
+
+        refreshTokenRepository.deleteAll(refreshTokenRepository.findAllByUser(user));
+        userRepository.delete(user);
+
+        eventPublisher.publishEvent(new UserChangedEvent(user.getUsername()));
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.shop.benchmark;
+
+import com.example.shop.inventory.InventoryLedger;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rezerwacje jednego produktu z wielu wątków naraz (rezerwacja + zwrot 1 sztuki):
+ * - singleCounter: jeden wspólny licznik (CAS na jednej komórce - odpowiednik jednego wiersza w bazie)
+ * - stripedLedger: InventoryLedger z licznikiem rozłożonym na paski
+ *
+ * Uruchomienie - jak w JwtVerificationBenchmark, z klasą com.example.shop.benchmark.InventoryLedgerBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(Threads.MAX)
+@Fork(1)
+public class InventoryLedgerBenchmark {
+
+    private static final long PRODUCT_ID = 1L;
+
+    private final AtomicLong singleCounter = new AtomicLong();
+    private InventoryLedger ledger;
+
+    @Setup
+    public void setUp() {
+        singleCounter.set(1_000_000);
+        ledger = new InventoryLedger(null);
+        ReflectionTestUtils.setField(ledger, "enabled", true);
+        ledger.track(PRODUCT_ID, 1_000_000);
+    }
+
+    @Benchmark
+    public boolean singleCounter() {
+        while (true) {
+            long current = singleCounter.get();
+            if (current < 1) {
+                return false;
+            }
+            if (singleCounter.compareAndSet(current, current - 1)) {
+                singleCounter.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean stripedLedger() {
+        boolean reserved = ledger.tryReserve(PRODUCT_ID, 1);
+        if (reserved) {
+            ledger.release(PRODUCT_ID, 1);
+        }
+        return reserved;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(InventoryLedgerBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.shop.benchmark;
+
+import com.example.shop.security.JwtClaims;
+import com.example.shop.security.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Liczba tokenów JWT weryfikowanych na sekundę:
+ * - legacyThreeParses: dawna ścieżka filtra (extractUsername + isTokenValid -> 3x nowy klucz, parser i weryfikacja podpisu)
+ * - parseOnce: JwtService.parseToken (gotowy klucz i parser, jedna weryfikacja)
+ *
+ * Uruchomienie:
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.example.shop.benchmark.JwtVerificationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "bardzotrudnehaslodlaJWTbardzotrudnehaslo";
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET);
+        ReflectionTestUtils.setField(jwtService, "jwtExpirationInMs", 3_600_000L);
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+        token = jwtService.generateToken("benchmarkUser");
+    }
+
+    @Benchmark
+    public boolean legacyThreeParses() {
+        String username = legacyClaims(token).getSubject();          // extractUsername
+        String usernameAgain = legacyClaims(token).getSubject();     // isTokenValid -> extractUsername
+        Date expiration = legacyClaims(token).getExpiration();       // isTokenValid -> isTokenExpired
+        return username.equals(usernameAgain) && !expiration.before(new Date());
+    }
+
+    @Benchmark
+    public boolean parseOnce() {
+        JwtClaims claims = jwtService.parseToken(token);
+        return jwtService.isTokenValid(claims, claims.getUsername());
+    }
+
+    // odtworzenie dawnego JwtService.extractAllClaims
+    private static Claims legacyClaims(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.shop.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Test obciążeniowy działającej aplikacji: N klientów naraz (każdy na własnym wątku wirtualnym) wysyła w pętli
+ * GET na podany adres przez zadany czas. Wynik: przepustowość, błędy (status != 2xx/304 albo wyjątek)
+ * i opóźnienia p50/p99/p99.9/max.
+ *
+ * Porównanie trybów - aplikacja uruchomiona raz zwyczajnie, raz z profilem virtual-threads:
+ * mvn spring-boot:run
+ * mvn spring-boot:run -Dspring-boot.run.profiles=virtual-threads
+ *
+ * Uruchomienie (token np. z POST /api/auth/login; przy 10k klientów podnieś ulimit -n):
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.example.shop.benchmark.LoadTestHarness \
+ *     http://localhost:8080/api/products/1 $TOKEN 1000,5000,10000 30
+ */
+public class LoadTestHarness {
+
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create(args.length > 0 ? args[0] : "http://localhost:8080/api/products/1");
+        String token = args.length > 1 && !args[1].isBlank() ? args[1] : null;
+        int[] clients = Arrays.stream((args.length > 2 ? args[2] : "1000,5000,10000").split(","))
+                .mapToInt(value -> Integer.parseInt(value.trim()))
+                .toArray();
+        Duration duration = Duration.ofSeconds(args.length > 3 ? Long.parseLong(args[3]) : 30);
+
+        System.out.println(Result.HEADER);
+        for (int count : clients) {
+            System.out.println(run(uri, token, count, duration));
+        }
+    }
+
+    public static Result run(URI uri, String token, int clients, Duration duration) throws Exception {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET();
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        HttpRequest request = builder.build();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .connectTimeout(Duration.ofSeconds(10))
+                     .executor(executor)
+                     .build()) {
+            long deadline = System.nanoTime() + duration.toNanos();
+            List<Future<ClientStats>> futures = new ArrayList<>(clients);
+            for (int i = 0; i < clients; i++) {
+                futures.add(executor.submit(() -> runClient(client, request, deadline)));
+            }
+
+            List<ClientStats> stats = new ArrayList<>(clients);
+            for (Future<ClientStats> future : futures) {
+                stats.add(future.get());
+            }
+            return Result.of(clients, duration, stats);
+        }
+    }
+
+    // zamknięta pętla: kolejne żądanie dopiero po odpowiedzi na poprzednie
+    private static ClientStats runClient(HttpClient client, HttpRequest request, long deadline) {
+        ClientStats stats = new ClientStats();
+        while (System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            try {
+                int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                if (status >= 400) {
+                    stats.errors++;
+                }
+            } catch (Exception ex) {
+                stats.errors++;
+            }
+            stats.record(System.nanoTime() - start);
+        }
+        return stats;
+    }
+
+    private static final class ClientStats {
+        private long[] latencies = new long[256];
+        private int count;
+        private long errors;
+
+        private void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+    }
+
+    public static final class Result {
+
+        static final String HEADER = String.format("%8s %10s %10s %8s %9s %9s %9s %9s",
+                "clients", "requests", "req/s", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        private final int clients;
+        private final long requests;
+        private final long errors;
+        private final double throughput;
+        private final long[] sorted;
+
+        private Result(int clients, long requests, long errors, double throughput, long[] sorted) {
+            this.clients = clients;
+            this.requests = requests;
+            this.errors = errors;
+            this.throughput = throughput;
+            this.sorted = sorted;
+        }
+
+        static Result of(int clients, Duration duration, List<ClientStats> stats) {
+            int total = stats.stream().mapToInt(s -> s.count).sum();
+            long[] all = new long[total];
+            int offset = 0;
+            long errors = 0;
+            for (ClientStats s : stats) {
+                System.arraycopy(s.latencies, 0, all, offset, s.count);
+                offset += s.count;
+                errors += s.errors;
+            }
+            Arrays.sort(all);
+            return new Result(clients, total, errors, total / (duration.toNanos() / 1e9), all);
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public double getThroughput() {
+            return throughput;
+        }
+
+        public double percentileMillis(double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile / 100 * sorted.length) - 1);
+            return sorted[Math.max(index, 0)] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%8d %10d %10.0f %8d %9.1f %9.1f %9.1f %9.1f", clients, requests, throughput, errors,
+                    percentileMillis(50), percentileMillis(99), percentileMillis(99.9), percentileMillis(100));
+        }
+    }
+}
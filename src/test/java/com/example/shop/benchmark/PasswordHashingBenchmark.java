@@ -0,0 +1,64 @@
+package com.example.shop.benchmark;
+
+import com.example.shop.security.PasswordHashing;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Koszt jednego logowania (PasswordEncoder.matches) na jednym rdzeniu dla kandydackich ustawień
+ * auth.password.algorithm / bcrypt-strength / pbkdf2-iterations. Wynik w ms/op:
+ * logowań na rdzeń na sekundę ≈ 1000 / wynik, a na całą pulę ≈ auth.password.threads * 1000 / wynik.
+ * Wybieramy najwyższy koszt, który mieści się w budżecie CPU na logowanie.
+ *
+ * Uruchomienie - jak w JwtVerificationBenchmark, z klasą com.example.shop.benchmark.PasswordHashingBenchmark.
+ * Inne parametry, np.: ... PasswordHashingBenchmark -p setting=bcrypt:11,pbkdf2:400000
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordHashingBenchmark {
+
+    private static final String PASSWORD = "secret123";
+
+    // algorytm:koszt (dla bcrypt - log2 rund, dla pbkdf2 - liczba iteracji)
+    @Param({"bcrypt:8", "bcrypt:10", "bcrypt:12", "pbkdf2:100000", "pbkdf2:310000", "pbkdf2:600000"})
+    private String setting;
+
+    private PasswordEncoder encoder;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        String[] parts = setting.split(":");
+        int cost = Integer.parseInt(parts[1]);
+        encoder = PasswordHashing.BCRYPT.equals(parts[0])
+                ? PasswordHashing.delegatingEncoder(parts[0], cost, 1)
+                : PasswordHashing.delegatingEncoder(parts[0], 4, cost);
+        hash = encoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean login() {
+        return encoder.matches(PASSWORD, hash);
+    }
+
+    // argumenty JMH z linii poleceń (np. -p setting=...) nadpisują domyślne
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(PasswordHashingBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.shop.benchmark;
+
+import com.example.shop.dto.ProductNameRow;
+import com.example.shop.dto.ProductQuantityRow;
+import com.example.shop.dto.ProductSuggestionDto;
+import com.example.shop.repository.OrderItemRepository;
+import com.example.shop.repository.ProductRepository;
+import com.example.shop.search.ProductAutocomplete;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Czas jednej podpowiedzi (top 10) w ProductAutocomplete z milionem nazw - tryb SampleTime podaje też p99.
+ * Prefiksy od 1 znaku (setki tysięcy pasujących nazw) do całego słowa z numerem.
+ *
+ * Uruchomienie - jak w JwtVerificationBenchmark, z klasą com.example.shop.benchmark.ProductAutocompleteBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductAutocompleteBenchmark {
+
+    private static final String[] WORDS = {"kabel", "ładowarka", "etui", "słuchawki", "monitor", "klawiatura",
+            "mysz", "dysk", "kamera", "głośnik", "router", "pendrive", "tablet", "laptop", "drukarka", "konsola"};
+
+    @Param({"k", "kab", "ład", "kabel 1", "mysz a"})
+    private String prefix;
+
+    private ProductAutocomplete productAutocomplete;
+
+    @Setup
+    public void setUp() {
+        int count = 1_000_000;
+        Random random = new Random(42);
+        List<ProductNameRow> rows = new ArrayList<>(count);
+        List<ProductQuantityRow> sold = new ArrayList<>();
+        for (long i = 1; i <= count; i++) {
+            rows.add(new ProductNameRow(i, WORDS[random.nextInt(WORDS.length)] + " " + Long.toString(i, 36)));
+            if (i % 10 == 0) {
+                sold.add(new ProductQuantityRow(i, (long) random.nextInt(1000)));
+            }
+        }
+        ProductRepository productRepository = mock(ProductRepository.class);
+        OrderItemRepository orderItemRepository = mock(OrderItemRepository.class);
+        when(productRepository.findAllNames()).thenReturn(rows);
+        when(orderItemRepository.sumQuantitiesByProduct()).thenReturn(sold);
+
+        productAutocomplete = new ProductAutocomplete(productRepository, orderItemRepository);
+        productAutocomplete.rebuild();
+    }
+
+    @Benchmark
+    public List<ProductSuggestionDto> suggest() {
+        return productAutocomplete.suggest(prefix, 10);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ProductAutocompleteBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
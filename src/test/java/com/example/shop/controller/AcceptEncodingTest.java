@@ -0,0 +1,28 @@
+package com.example.shop.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AcceptEncodingTest {
+
+    @Test
+    void acceptsGzip_ParsesCodingsAndHonoursZeroQuality() {
+        assertTrue(AcceptEncoding.acceptsGzip("gzip, deflate, br"));
+        assertTrue(AcceptEncoding.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(AcceptEncoding.acceptsGzip("x-gzip"));
+        assertTrue(AcceptEncoding.acceptsGzip("*"));
+        assertFalse(AcceptEncoding.acceptsGzip("gzip;q=0"));
+        assertFalse(AcceptEncoding.acceptsGzip("*, gzip;q=0"));
+        assertFalse(AcceptEncoding.acceptsGzip("x-notgzip, identity"));
+        assertFalse(AcceptEncoding.acceptsGzip(null));
+    }
+
+    @Test
+    void acceptsDeflate_OnlyWhenListedOrCoveredByWildcard() {
+        assertTrue(AcceptEncoding.acceptsDeflate("gzip;q=0, deflate"));
+        assertTrue(AcceptEncoding.acceptsDeflate("*;q=0.5"));
+        assertFalse(AcceptEncoding.acceptsDeflate("deflate;q=0.000"));
+        assertFalse(AcceptEncoding.acceptsDeflate("gzip, br"));
+    }
+}
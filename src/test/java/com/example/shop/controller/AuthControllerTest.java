@@ -5,7 +5,10 @@ import com.example.shop.dto.RegisterRequest;
 import com.example.shop.entity.RefreshToken;
 import com.example.shop.entity.User;
 import com.example.shop.exception.GlobalExceptionHandler;
+import com.example.shop.exception.ServiceOverloadedException;
+import com.example.shop.security.JwtClaims;
 import com.example.shop.security.JwtService;
+import com.example.shop.security.TokenDenyList;
 import com.example.shop.service.AuthService;
 import com.example.shop.service.RefreshTokenService;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,6 +21,9 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.util.Date;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -37,6 +43,9 @@ class AuthControllerTest {
     @Mock
     private RefreshTokenService refreshTokenService;
 
+    @Mock
+    private TokenDenyList tokenDenyList;
+
     @InjectMocks
     private AuthController authController;
 
@@ -100,7 +109,7 @@ class AuthControllerTest {
         User mockUser = new User("testuser", "encoded123");
         when(authService.login(any(LoginRequest.class))).thenReturn(mockUser);
 
-        when(jwtService.generateToken("testuser")).thenReturn("mockAccessToken");
+        when(jwtService.generateToken(mockUser)).thenReturn("mockAccessToken");
 
         RefreshToken refreshToken = new RefreshToken();
         refreshToken.setToken("mockRefreshToken");
@@ -120,7 +129,7 @@ class AuthControllerTest {
                 .andExpect(jsonPath("$.refreshToken").value("mockRefreshToken"));
 
         verify(authService).login(any(LoginRequest.class));
-        verify(jwtService).generateToken(eq("testuser"));
+        verify(jwtService).generateToken(mockUser);
         verify(refreshTokenService).createRefreshToken(mockUser);
     }
 
@@ -148,4 +157,45 @@ class AuthControllerTest {
 
         verify(authService).login(any(LoginRequest.class));
     }
+
+    @Test
+    void login_PasswordPoolSaturated_ServiceUnavailable() throws Exception {
+        // given
+        when(authService.login(any(LoginRequest.class)))
+                .thenThrow(new ServiceOverloadedException("Zbyt wiele równoczesnych logowań. Spróbuj ponownie za chwilę."));
+
+        // when + then
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                   {
+                     "username": "testuser",
+                     "password": "secret123"
+                   }
+                """))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.errorCode").value("SERVICE_UNAVAILABLE"));
+
+        verifyNoInteractions(jwtService, refreshTokenService);
+    }
+
+    @Test
+    void logout_RevokesOnlyPresentedAccessToken() throws Exception {
+        // given
+        JwtClaims claims = new JwtClaims("jti-1", "testuser", 1L, new Date(),
+                new Date(System.currentTimeMillis() + 60_000), List.of("ROLE_USER"));
+        when(jwtService.parseToken("access-token")).thenReturn(claims);
+
+        // when + then
+        mockMvc.perform(post("/api/auth/logout")
+                        .header("Authorization", "Bearer access-token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\": \"refresh-token\"}"))
+                .andExpect(status().isOk());
+
+        verify(refreshTokenService).deleteRefreshToken("refresh-token");
+        verify(tokenDenyList).revoke(claims);
+        verify(tokenDenyList, never()).revokeAllFor(any());
+    }
 }
@@ -1,5 +1,7 @@
 package com.example.shop.controller;
 
+import com.example.shop.dto.BulkOrderLineResult;
+import com.example.shop.dto.BulkOrderResultDto;
 import com.example.shop.dto.OrderDto;
 import com.example.shop.dto.OrderRequest;
 import com.example.shop.entity.Order;
@@ -7,6 +9,7 @@ import com.example.shop.entity.User;
 import com.example.shop.exception.GlobalExceptionHandler;
 import com.example.shop.mapper.OrderMapper;
 import com.example.shop.service.AuthService;
+import com.example.shop.service.OrderImportService;
 import com.example.shop.service.OrderService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,10 +17,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -37,6 +43,9 @@ class OrderControllerTest {
     @Mock
     private OrderService orderService;
 
+    @Mock
+    private OrderImportService orderImportService;
+
     @Mock
     private AuthService authService;
 
@@ -130,22 +139,32 @@ class OrderControllerTest {
     }
 
     @Test
-    void getAllOrdersForUser_Success() throws Exception {
+    void importOrders_Ndjson_PassesBodyStreamToImportService() throws Exception {
         // given
         when(authService.getCurrentUser()).thenReturn(mockUser);
+        BulkOrderLineResult line = BulkOrderLineResult.created(501L);
+        when(orderImportService.importOrders(eq(mockUser), any(InputStream.class)))
+                .thenReturn(new BulkOrderResultDto(1, 0, null, List.of(line)));
+
+        // when + then
+        mockMvc.perform(post("/api/orders/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"items\":[{\"productId\":1,\"quantity\":2}]}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.results[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.results[0].orderId").value(501));
+
+        verify(orderImportService).importOrders(eq(mockUser), any(InputStream.class));
+        verifyNoInteractions(orderService);
+    }
 
-        // Zwrot z service
-        Order order1 = new Order();
-        order1.setId(1000L);
-        order1.setUser(mockUser);
-        Order order2 = new Order();
-        order2.setId(2000L);
-        order2.setUser(mockUser);
-
-        when(orderService.getAllOrdersForUser(mockUser))
-                .thenReturn(List.of(order1, order2));
+    @Test
+    void getAllOrdersForUser_Success() throws Exception {
+        // given
+        when(authService.getCurrentUser()).thenReturn(mockUser);
 
-        // Symulujemy mapowanie encji -> DTO
+        // serwis zwraca gotowe DTO z zapytania projekcyjnego
         OrderDto dto1 = new OrderDto();
         dto1.setId(1000L);
         dto1.setUserId(10L);
@@ -156,25 +175,51 @@ class OrderControllerTest {
         dto2.setUserId(10L);
         dto2.setUsername("demoUser");
 
-        try (var mockedMapper = mockStatic(OrderMapper.class)) {
-            mockedMapper.when(() -> OrderMapper.toDto(order1)).thenReturn(dto1);
-            mockedMapper.when(() -> OrderMapper.toDto(order2)).thenReturn(dto2);
+        when(orderService.getOrderHistoryForUser(mockUser)).thenReturn(List.of(dto1, dto2));
 
-            // when
-            mockMvc.perform(get("/api/orders"))
-                    .andExpect(status().isOk())
-                    .andExpect(jsonPath("$.length()").value(2))
-                    .andExpect(jsonPath("$[0].id").value(1000))
-                    .andExpect(jsonPath("$[1].id").value(2000))
-                    .andExpect(jsonPath("$[0].username").value("demoUser"))
-                    .andExpect(jsonPath("$[1].username").value("demoUser"));
+        // when
+        mockMvc.perform(get("/api/orders"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(1000))
+                .andExpect(jsonPath("$[1].id").value(2000))
+                .andExpect(jsonPath("$[0].username").value("demoUser"))
+                .andExpect(jsonPath("$[1].username").value("demoUser"));
 
-            verify(authService).getCurrentUser();
-            verify(orderService).getAllOrdersForUser(mockUser);
+        verify(authService).getCurrentUser();
+        verify(orderService).getOrderHistoryForUser(mockUser);
+    }
 
-            // weryfikacja, czy mapper został wywołany dwa razy
-            mockedMapper.verify(() -> OrderMapper.toDto(order1));
-            mockedMapper.verify(() -> OrderMapper.toDto(order2));
-        }
+    @Test
+    void getAllOrdersForUser_WithPageAndDateRange_ReturnsPage() throws Exception {
+        // given
+        when(authService.getCurrentUser()).thenReturn(mockUser);
+
+        OrderDto dto = new OrderDto();
+        dto.setId(1000L);
+        dto.setUserId(10L);
+        dto.setUsername("demoUser");
+        dto.setCreatedAt(LocalDateTime.of(2025, 1, 15, 10, 0));
+
+        LocalDateTime from = LocalDateTime.of(2025, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2025, 2, 1, 0, 0);
+        when(orderService.getOrdersForUser(mockUser, from, to, 0, 10))
+                .thenReturn(new SliceImpl<>(List.of(dto), PageRequest.of(0, 10), true));
+
+        // when + then
+        mockMvc.perform(get("/api/orders")
+                        .param("from", "2025-01-01T00:00:00")
+                        .param("to", "2025-02-01T00:00:00")
+                        .param("page", "0")
+                        .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(1000))
+                .andExpect(jsonPath("$.items[0].username").value("demoUser"))
+                .andExpect(jsonPath("$.page").value(0))
+                .andExpect(jsonPath("$.size").value(10))
+                .andExpect(jsonPath("$.hasNext").value(true));
+
+        verify(orderService).getOrdersForUser(mockUser, from, to, 0, 10);
     }
 }
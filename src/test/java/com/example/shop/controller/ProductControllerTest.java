@@ -1,22 +1,31 @@
 package com.example.shop.controller;
 
+import com.example.shop.dto.ProductPageDto;
+import com.example.shop.dto.PriceFacetDto;
+import com.example.shop.dto.ProductSearchResultDto;
+import com.example.shop.dto.ProductSuggestionDto;
 import com.example.shop.entity.Product;
 import com.example.shop.exception.GlobalExceptionHandler;
+import com.example.shop.search.ProductAutocomplete;
+import com.example.shop.search.ProductSearchIndex;
+import com.example.shop.service.ProductPayloadCache;
 import com.example.shop.service.ProductService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -32,9 +41,17 @@ class ProductControllerTest {
     @Mock
     private ProductService productService;
 
-    @InjectMocks
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @Mock
+    private ProductAutocomplete productAutocomplete;
+
     private ProductController productController;
 
+    // prawdziwy cache bajtów odpowiedzi - serializację sprawdzamy na faktycznym JSON
+    private ProductPayloadCache productPayloadCache;
+
     private MockMvc mockMvc;
 
     private ObjectMapper objectMapper;
@@ -43,6 +60,9 @@ class ProductControllerTest {
 
     @BeforeEach
     void setUp() {
+        productPayloadCache = new ProductPayloadCache(new ObjectMapper(), 100);
+        productController = new ProductController(productService, productPayloadCache, productSearchIndex,
+                productAutocomplete);
         mockMvc = MockMvcBuilders
                 .standaloneSetup(productController)
                 .setControllerAdvice(new GlobalExceptionHandler())
@@ -82,6 +102,25 @@ class ProductControllerTest {
         verify(productService).getAllProducts();
     }
 
+    @Test
+    void getAllProducts_WithCursorParams_ReturnsPage() throws Exception {
+        // given
+        when(productService.getProductsPage("abc", 1))
+                .thenReturn(new ProductPageDto(List.of(sampleProduct), "next"));
+
+        // when + then
+        mockMvc.perform(get("/api/products")
+                        .param("cursor", "abc")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(1))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+
+        verify(productService).getProductsPage("abc", 1);
+        verify(productService, never()).getAllProducts();
+    }
+
     @Test
     void getProductById_Success() throws Exception {
         // given
@@ -98,6 +137,135 @@ class ProductControllerTest {
         verify(productService).getProductById(1L);
     }
 
+    @Test
+    void getProductById_MatchingETag_Returns304() throws Exception {
+        // given
+        sampleProduct.setVersion(3L);
+        when(productService.getProductById(1L)).thenReturn(sampleProduct);
+
+        // when + then
+        mockMvc.perform(get("/api/products/{id}", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-3\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"));
+
+        mockMvc.perform(get("/api/products/{id}", 1L).header(HttpHeaders.IF_NONE_MATCH, "\"1-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        // nowa wersja produktu -> pełna odpowiedź
+        sampleProduct.setVersion(4L);
+        mockMvc.perform(get("/api/products/{id}", 1L).header(HttpHeaders.IF_NONE_MATCH, "\"1-3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-4\""));
+    }
+
+    @Test
+    void getAllProducts_MatchingETag_Returns304() throws Exception {
+        // given
+        when(productService.getAllProducts()).thenReturn(List.of(sampleProduct));
+        String etag = mockMvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // when + then
+        mockMvc.perform(get("/api/products").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getAllProducts_LargeList_ServedCompressedFromCachedBytes() throws Exception {
+        // given - lista większa niż próg kompresji
+        List<Product> products = new java.util.ArrayList<>();
+        for (long i = 1; i <= 50; i++) {
+            Product p = new Product("Produkt numer " + i, 10.0 + i, 5);
+            p.setId(i);
+            p.setVersion(0L);
+            products.add(p);
+        }
+        List<Product> cachedList = List.copyOf(products);
+        when(productService.getAllProducts()).thenReturn(cachedList);
+
+        // when
+        byte[] gzipped = mockMvc.perform(get("/api/products").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(header().string(HttpHeaders.ETAG, org.hamcrest.Matchers.endsWith("-gz\"")))
+                .andReturn().getResponse().getContentAsByteArray();
+        mockMvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(jsonPath("$.length()").value(50));
+        byte[] deflated = mockMvc.perform(get("/api/products").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "deflate"))
+                .andExpect(header().string(HttpHeaders.ETAG, org.hamcrest.Matchers.endsWith("-df\"")))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // then - wszystkie reprezentacje z jednej serializacji
+        try (var in = new java.util.zip.GZIPInputStream(new java.io.ByteArrayInputStream(gzipped))) {
+            assertEquals(50, objectMapper.readTree(in).size());
+        }
+        try (var in = new java.util.zip.InflaterInputStream(new java.io.ByteArrayInputStream(deflated))) {
+            assertEquals(50, objectMapper.readTree(in).size());
+        }
+        assertEquals(1, productPayloadCache.getSerializations());
+    }
+
+    @Test
+    void searchProducts_ReturnsHitsAndFacets() throws Exception {
+        // given
+        when(productSearchIndex.search("test", 100.0, null, 5)).thenReturn(new ProductSearchResultDto(
+                List.of(sampleProduct), 1, List.of(new PriceFacetDto(100, null, 1))));
+
+        // when & then
+        mockMvc.perform(get("/api/products/search")
+                        .param("q", "test")
+                        .param("minPrice", "100")
+                        .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.items[0].name").value("Test Product"))
+                .andExpect(jsonPath("$.priceFacets[0].count").value(1));
+    }
+
+    @Test
+    void searchProducts_MinPriceAboveMax_BadRequest() throws Exception {
+        mockMvc.perform(get("/api/products/search")
+                        .param("minPrice", "100")
+                        .param("maxPrice", "10"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorMessage").value("Cena minimalna nie może być większa od maksymalnej"));
+
+        verifyNoInteractions(productSearchIndex);
+    }
+
+    @Test
+    void suggestProducts_ReturnsNames() throws Exception {
+        // given
+        when(productAutocomplete.suggest("tes", 3)).thenReturn(List.of(new ProductSuggestionDto(1L, "Test Product")));
+
+        // when & then
+        mockMvc.perform(get("/api/products/suggest").param("q", "tes").param("size", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].name").value("Test Product"));
+    }
+
+    @Test
+    void getProductById_NoFreeDbConnection_ServiceUnavailable() throws Exception {
+        // given - pula połączeń wyczerpana (profil virtual-threads: connection-timeout)
+        when(productService.getProductById(1L))
+                .thenThrow(new CannotCreateTransactionException("Connection is not available"));
+
+        // when & then
+        mockMvc.perform(get("/api/products/1"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(jsonPath("$.errorCode").value("SERVICE_UNAVAILABLE"));
+    }
+
     @Test
     void getProductById_NotFound() throws Exception {
         // given
@@ -0,0 +1,80 @@
+package com.example.shop.event;
+
+import com.example.shop.config.CacheConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCacheInvalidatorTest {
+
+    private ConcurrentMapCacheManager cacheManager;
+
+    private ProductCacheInvalidator invalidator;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager(CacheConfig.PRODUCTS_CACHE, CacheConfig.PRODUCT_LIST_CACHE);
+        invalidator = new ProductCacheInvalidator(cacheManager);
+
+        Cache products = cacheManager.getCache(CacheConfig.PRODUCTS_CACHE);
+        products.put(1L, "produkt 1");
+        products.put(2L, "produkt 2");
+        cacheManager.getCache(CacheConfig.PRODUCT_LIST_CACHE).put(SimpleKey.EMPTY, List.of("produkt 1", "produkt 2"));
+    }
+
+    @Test
+    void onProductChanged_EvictsSingleProductAndList() {
+        // when
+        invalidator.onProductChanged(new ProductChangedEvent(1L));
+
+        // then
+        Cache products = cacheManager.getCache(CacheConfig.PRODUCTS_CACHE);
+        assertNull(products.get(1L));
+        assertNotNull(products.get(2L));
+        assertNull(cacheManager.getCache(CacheConfig.PRODUCT_LIST_CACHE).get(SimpleKey.EMPTY));
+        assertEquals(1, invalidator.getInvalidationCount());
+    }
+
+    @Test
+    void onProductChanged_NullId_ClearsAllProducts() {
+        // when
+        invalidator.onProductChanged(new ProductChangedEvent(null));
+
+        // then
+        Cache products = cacheManager.getCache(CacheConfig.PRODUCTS_CACHE);
+        assertNull(products.get(1L));
+        assertNull(products.get(2L));
+        assertNull(cacheManager.getCache(CacheConfig.PRODUCT_LIST_CACHE).get(SimpleKey.EMPTY));
+    }
+
+    @Test
+    void onProductImport_ClearsAllProductsAfterEachBatch() {
+        // when
+        invalidator.onProductImport(new ProductImportEvent(false));
+
+        // then
+        Cache products = cacheManager.getCache(CacheConfig.PRODUCTS_CACHE);
+        assertNull(products.get(1L));
+        assertNull(products.get(2L));
+        assertNull(cacheManager.getCache(CacheConfig.PRODUCT_LIST_CACHE).get(SimpleKey.EMPTY));
+    }
+
+    @Test
+    void onStockReleased_EvictsOnlyReleasedProductsAndList() {
+        // when
+        invalidator.onStockReleased(new ProductStockReleasedEvent(Set.of(2L)));
+
+        // then
+        Cache products = cacheManager.getCache(CacheConfig.PRODUCTS_CACHE);
+        assertNotNull(products.get(1L));
+        assertNull(products.get(2L));
+        assertNull(cacheManager.getCache(CacheConfig.PRODUCT_LIST_CACHE).get(SimpleKey.EMPTY));
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.shop.integration;
+
+import com.example.shop.dto.LoginRequest;
+import com.example.shop.dto.RegisterRequest;
+import com.example.shop.entity.Order;
+import com.example.shop.entity.OrderItem;
+import com.example.shop.entity.Product;
+import com.example.shop.entity.User;
+import com.example.shop.repository.OrderRepository;
+import com.example.shop.repository.ProductRepository;
+import com.example.shop.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * GET /api/admin/orders/export - NDJSON (opcjonalnie gzip) przez cały stos, tylko dla admina.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AdminOrderExportIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User buyer;
+    private Product product;
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        buyer = userRepository.save(new User("exportBuyer", "secret", "ROLE_USER"));
+        product = productRepository.save(new Product("Monitor", 800.0, 10));
+
+        order = new Order();
+        order.setUser(buyer);
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProduct(product);
+        item.setQuantity(2);
+        item.setPriceAtOrderTime(product.getPrice());
+        order.setItems(Set.of(item));
+        order = orderRepository.save(order);
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteById(order.getId());
+        productRepository.deleteById(product.getId());
+        userRepository.delete(buyer);
+    }
+
+    @Test
+    void export_Gzip_ReturnsNdjsonWithOurOrder() throws Exception {
+        String adminToken = registerAndLogin(true);
+
+        MvcResult result = mockMvc.perform(get("/api/admin/orders/export")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        List<JsonNode> orders = readLines(new GZIPInputStream(
+                new ByteArrayInputStream(result.getResponse().getContentAsByteArray())));
+        JsonNode exported = orders.stream()
+                .filter(o -> o.get("id").asLong() == order.getId())
+                .findFirst()
+                .orElseThrow();
+        assertEquals("exportBuyer", exported.get("username").asText());
+        assertEquals("Monitor", exported.get("items").get(0).get("productName").asText());
+        assertEquals(2, exported.get("items").get(0).get("quantity").asInt());
+    }
+
+    @Test
+    void export_PlainWithDateRange_And_ForbiddenForUser() throws Exception {
+        String adminToken = registerAndLogin(true);
+
+        // zakres w przyszłości - pusty eksport; gzip odrzucony przez q=0
+        MvcResult result = mockMvc.perform(get("/api/admin/orders/export")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, identity")
+                        .param("from", "2999-01-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn();
+        assertTrue(result.getResponse().getContentAsString().isEmpty());
+
+        String userToken = registerAndLogin(false);
+        mockMvc.perform(get("/api/admin/orders/export")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isForbidden());
+    }
+
+    private List<JsonNode> readLines(InputStream in) throws Exception {
+        List<JsonNode> nodes = new ArrayList<>();
+        for (String line : new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isBlank()) {
+                nodes.add(objectMapper.readTree(line));
+            }
+        }
+        return nodes;
+    }
+
+    private String registerAndLogin(boolean admin) throws Exception {
+        String username = (admin ? "exportAdmin-" : "exportUser-") + UUID.randomUUID().toString().substring(0, 8);
+        RegisterRequest regReq = new RegisterRequest();
+        regReq.setUsername(username);
+        regReq.setPassword("secret123");
+        regReq.setAdmin(admin);
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(regReq)))
+                .andExpect(status().isOk());
+
+        LoginRequest loginReq = new LoginRequest();
+        loginReq.setUsername(username);
+        loginReq.setPassword("secret123");
+        var result = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginReq)))
+                .andExpect(status().isOk())
+                .andReturn();
+        Map<?, ?> responseMap = objectMapper.readValue(result.getResponse().getContentAsString(), Map.class);
+        return responseMap.get("accessToken").toString();
+    }
+}
@@ -13,8 +13,10 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Map;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -94,5 +96,29 @@ class AuthIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").exists())
                 .andExpect(jsonPath("$.name").value("Laptop Dell"));
+
+        // 5. Rejestracja i logowanie przeszły przez pulę haszowania haseł
+        mockMvc.perform(get("/api/admin/auth/password-hashing/stats")
+                        .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.completed").isNumber())
+                .andExpect(jsonPath("$.rejected").value(0))
+                .andExpect(jsonPath("$.queueDepth").isNumber());
+
+        // 6. Logowanie na nieistniejące konto - odrzucone jak złe hasło; zarejestrowana nazwa jest w filtrze
+        LoginRequest unknown = new LoginRequest();
+        unknown.setUsername("nieistnieje-" + UUID.randomUUID());
+        unknown.setPassword("secret123");
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(unknown)))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/admin/auth/username-filter/stats")
+                        .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ready").value(true))
+                .andExpect(jsonPath("$.entries").isNumber())
+                .andExpect(jsonPath("$.observedFalsePositiveRate").isNumber());
     }
 }
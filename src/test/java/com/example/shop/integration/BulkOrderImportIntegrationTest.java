@@ -0,0 +1,142 @@
+package com.example.shop.integration;
+
+import com.example.shop.dto.LoginRequest;
+import com.example.shop.dto.RegisterRequest;
+import com.example.shop.entity.Product;
+import com.example.shop.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * POST /api/orders/bulk przez cały stos (JWT, kontroler, porcje w transakcjach).
+ * Test przepustowości wypisuje na konsolę zamówienia/s: pojedyncze POST /api/orders vs import hurtowy.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BulkOrderImportIntegrationTest {
+
+    private static final int ORDERS = 300;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private String userToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userToken = createUserAndGetToken("bulkBuyer-" + UUID.randomUUID().toString().substring(0, 8), "secretUser");
+    }
+
+    @Test
+    void bulkImport_NdjsonAndJsonArray_ReturnPerOrderResults() throws Exception {
+        Product product = productRepository.save(new Product("Papier A4", 20.0, 5));
+        String ndjson = """
+                {"items":[{"productId":%1$d,"quantity":3}]}
+                {"items":[{"productId":%1$d,"quantity":3}]}
+                {"items":[]}
+                """.formatted(product.getId());
+
+        mockMvc.perform(post("/api/orders/bulk")
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.rejected").value(2))
+                .andExpect(jsonPath("$.results[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.results[0].orderId").exists())
+                .andExpect(jsonPath("$.results[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$.results[1].error")
+                        .value("Brak wystarczającego stanu magazynowego dla produktu: Papier A4"))
+                .andExpect(jsonPath("$.results[2].index").value(2))
+                .andExpect(jsonPath("$.results[2].status").value("REJECTED"));
+
+        String jsonArray = """
+                [ {"items":[{"productId":%1$d,"quantity":1}]}, {"items":[{"productId":%1$d,"quantity":1}]} ]
+                """.formatted(product.getId());
+
+        mockMvc.perform(post("/api/orders/bulk")
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonArray))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.rejected").value(0))
+                .andExpect(jsonPath("$.error").doesNotExist());
+
+        assertEquals(0, productRepository.findById(product.getId()).orElseThrow().getStockQuantity());
+    }
+
+    @Test
+    void bulkImport_AndSingleOrders_ConsumeTheSameStock() throws Exception {
+        Product product = productRepository.save(new Product("Długopis", 2.0, 2 * ORDERS));
+        String orderJson = "{\"items\":[{\"productId\":%d,\"quantity\":1}]}".formatted(product.getId());
+
+        for (int i = 0; i < ORDERS; i++) {
+            mockMvc.perform(post("/api/orders")
+                            .header("Authorization", "Bearer " + userToken)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(orderJson))
+                    .andExpect(status().isOk());
+        }
+
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < ORDERS; i++) {
+            ndjson.append(orderJson).append('\n');
+        }
+        mockMvc.perform(post("/api/orders/bulk")
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(ORDERS));
+
+        assertEquals(0, productRepository.findById(product.getId()).orElseThrow().getStockQuantity());
+    }
+
+    private String createUserAndGetToken(String username, String password) throws Exception {
+        RegisterRequest regReq = new RegisterRequest();
+        regReq.setUsername(username);
+        regReq.setPassword(password);
+        regReq.setAdmin(false);
+
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(regReq)))
+                .andExpect(status().isOk());
+
+        LoginRequest loginReq = new LoginRequest();
+        loginReq.setUsername(username);
+        loginReq.setPassword(password);
+
+        var result = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginReq)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        Map<?, ?> responseMap = objectMapper.readValue(result.getResponse().getContentAsString(), Map.class);
+        return responseMap.get("accessToken").toString();
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.shop.integration;
+
+import com.example.shop.entity.Order;
+import com.example.shop.entity.OrderItem;
+import com.example.shop.entity.Product;
+import com.example.shop.entity.User;
+import com.example.shop.repository.OrderRepository;
+import com.example.shop.repository.ProductRepository;
+import com.example.shop.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Liczba round tripów do bazy przy zapisie zamówienia z 1, 10 i 100 pozycjami:
+ * id z IDENTITY (domyślnie) vs id z sekwencji pooled + paczki JDBC (profil "pooled-ids").
+ * Round tripów nie mierzymy bezpośrednio - zastępuje je liczba przygotowanych zapytań JDBC
+ * (Statistics.getPrepareStatementCount z Hibernate), a paczka INSERT-ów liczy się jako jedno zapytanie.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderInsertRoundTripsIntegrationTest {
+
+    private static final int[] LINES = {1, 10, 100};
+
+    @Nested
+    class IdentityIds {
+
+        @Autowired
+        private OrderRepository orderRepository;
+
+        @Autowired
+        private ProductRepository productRepository;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        @Autowired
+        private EntityManagerFactory entityManagerFactory;
+
+        @Autowired
+        private TransactionTemplate transactionTemplate;
+
+        @Test
+        void everyRowIsASeparateInsert() {
+            Map<Integer, Long> roundTrips = measure("rtIdentityUser", orderRepository, productRepository,
+                    userRepository, entityManagerFactory, transactionTemplate);
+
+            for (int lines : LINES) {
+                assertEquals(lines + 1, roundTrips.get(lines));
+            }
+        }
+    }
+
+    // osobny schemat, żeby tabele z id z sekwencji nie gryzły się z tabelami pozostałych testów
+    @Nested
+    @ActiveProfiles("pooled-ids")
+    @TestPropertySource(properties = {
+            "spring.jpa.properties.hibernate.default_schema=bench_pooled",
+            "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true"
+    })
+    class PooledSequenceIds {
+
+        @Autowired
+        private OrderRepository orderRepository;
+
+        @Autowired
+        private ProductRepository productRepository;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        @Autowired
+        private EntityManagerFactory entityManagerFactory;
+
+        @Autowired
+        private TransactionTemplate transactionTemplate;
+
+        @Test
+        void itemsAreInsertedInJdbcBatches() {
+            Map<Integer, Long> roundTrips = measure("rtPooledUser", orderRepository,
+                    productRepository, userRepository, entityManagerFactory, transactionTemplate);
+
+            // order: INSERT + ewentualnie pobranie puli id; pozycje: po jednej paczce na 50 wierszy
+            assertTrue(roundTrips.get(1) <= 4, "1 pozycja: " + roundTrips.get(1));
+            assertTrue(roundTrips.get(10) <= 4, "10 pozycji: " + roundTrips.get(10));
+            assertTrue(roundTrips.get(100) <= 8, "100 pozycji: " + roundTrips.get(100));
+        }
+    }
+
+    private static Map<Integer, Long> measure(String username,
+                                              OrderRepository orderRepository,
+                                              ProductRepository productRepository,
+                                              UserRepository userRepository,
+                                              EntityManagerFactory entityManagerFactory,
+                                              TransactionTemplate transactionTemplate) {
+        User user = userRepository.save(new User(username, "secret", "ROLE_USER"));
+        Product product = productRepository.save(new Product("Śrubka", 0.5, 1_000_000));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // rozgrzewka - pierwsza pula id z sekwencji nie zaciemnia wyników
+        saveOrder(user, product, 1, orderRepository, transactionTemplate);
+
+        Map<Integer, Long> roundTrips = new LinkedHashMap<>();
+        for (int lines : LINES) {
+            statistics.clear();
+            saveOrder(user, product, lines, orderRepository, transactionTemplate);
+            roundTrips.put(lines, statistics.getPrepareStatementCount());
+        }
+
+        return roundTrips;
+    }
+
+    private static void saveOrder(User user, Product product, int lines,
+                                  OrderRepository orderRepository, TransactionTemplate transactionTemplate) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Order order = new Order();
+            order.setUser(user);
+            Set<OrderItem> items = new LinkedHashSet<>();
+            for (int i = 0; i < lines; i++) {
+                OrderItem item = new OrderItem();
+                item.setOrder(order);
+                item.setProduct(product);
+                item.setQuantity(1);
+                item.setPriceAtOrderTime(product.getPrice());
+                items.add(item);
+            }
+            order.setItems(items);
+            orderRepository.save(order);
+        });
+    }
+}
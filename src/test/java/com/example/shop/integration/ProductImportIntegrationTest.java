@@ -0,0 +1,140 @@
+package com.example.shop.integration;
+
+import com.example.shop.dto.LoginRequest;
+import com.example.shop.dto.RegisterRequest;
+import com.example.shop.entity.Product;
+import com.example.shop.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * POST /api/admin/products/import przez cały stos. Test przepustowości wypisuje na konsolę produkty/s
+ * dla importu NDJSON paczkami JDBC.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProductImportIntegrationTest {
+
+    private static final int BULK_ROWS = 20_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String adminToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        adminToken = createAdminAndGetToken("importAdmin-" + UUID.randomUUID().toString().substring(0, 8));
+    }
+
+    @Test
+    void importCsv_InsertsUpdatesAndReportsRowErrors() throws Exception {
+        Product existing = productRepository.save(new Product("Stara nazwa", 10.0, 3));
+        String marker = UUID.randomUUID().toString().substring(0, 8);
+        String csv = """
+                id,name,price,stockQuantity
+                ,Nowy-%1$s,15.5,7
+                %2$d,Nowa nazwa,12,
+                ,Zły-%1$s,-1,1
+                999999,Widmo,1,1
+                """.formatted(marker, existing.getId());
+
+        mockMvc.perform(post("/api/admin/products/import")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(1))
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.errors[0].line").value(4))
+                .andExpect(jsonPath("$.errors[1].error").value("Produkt o id 999999 nie istnieje"));
+
+        Product updated = productRepository.findById(existing.getId()).orElseThrow();
+        assertEquals("Nowa nazwa", updated.getName());
+        assertEquals(3, updated.getStockQuantity());
+        assertEquals(1, updated.getVersion());
+        assertEquals(1, countByName("Nowy-" + marker));
+    }
+
+    @Test
+    void importCsv_BadHeader_Returns400() throws Exception {
+        mockMvc.perform(post("/api/admin/products/import")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .contentType("text/csv")
+                        .content("nazwa,cena\nKabel,1\n"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void importNdjson_ManyRows_AreAllInserted() throws Exception {
+        String marker = "bulk-" + UUID.randomUUID().toString().substring(0, 8);
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < BULK_ROWS; i++) {
+            ndjson.append("{\"name\":\"").append(marker).append("\",\"price\":").append(i % 100 + 0.99)
+                    .append(",\"stockQuantity\":").append(i % 50).append("}\n");
+        }
+
+        mockMvc.perform(post("/api/admin/products/import")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(BULK_ROWS))
+                .andExpect(jsonPath("$.failed").value(0));
+
+        assertEquals(BULK_ROWS, countByName(marker));
+        jdbcTemplate.update("DELETE FROM products WHERE name = ?", marker);
+    }
+
+    private int countByName(String name) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products WHERE name = ?", Integer.class, name);
+    }
+
+    private String createAdminAndGetToken(String username) throws Exception {
+        RegisterRequest regReq = new RegisterRequest();
+        regReq.setUsername(username);
+        regReq.setPassword("secretAdmin");
+        regReq.setAdmin(true);
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(regReq)))
+                .andExpect(status().isOk());
+
+        LoginRequest loginReq = new LoginRequest();
+        loginReq.setUsername(username);
+        loginReq.setPassword("secretAdmin");
+        var result = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginReq)))
+                .andExpect(status().isOk())
+                .andReturn();
+        Map<?, ?> responseMap = objectMapper.readValue(result.getResponse().getContentAsString(), Map.class);
+        return responseMap.get("accessToken").toString();
+    }
+}
@@ -9,12 +9,15 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Map;
 
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -94,13 +97,30 @@ class ProductIntegrationTest {
                 .andExpect(jsonPath("$.[*].name").isNotEmpty());
 
         // 3. Pobranie produktu po ID
-        mockMvc.perform(get("/api/products/" + createdId)
+        String productETag = mockMvc.perform(get("/api/products/" + createdId)
                         .header("Authorization", "Bearer " + adminAccessToken))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(createdId))
                 .andExpect(jsonPath("$.name").value("Kamera Sony"))
                 .andExpect(jsonPath("$.price").value(1999.99))
-                .andExpect(jsonPath("$.stockQuantity").value(10));
+                .andExpect(jsonPath("$.stockQuantity").value(10))
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        String listETag = mockMvc.perform(get("/api/products")
+                        .header("Authorization", "Bearer " + adminAccessToken))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Niezmieniony produkt / lista -> 304 bez body
+        mockMvc.perform(get("/api/products/" + createdId)
+                        .header("Authorization", "Bearer " + adminAccessToken)
+                        .header(HttpHeaders.IF_NONE_MATCH, productETag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/products")
+                        .header("Authorization", "Bearer " + adminAccessToken)
+                        .header(HttpHeaders.IF_NONE_MATCH, listETag))
+                .andExpect(status().isNotModified());
 
         // Update produktu po ID
         mockMvc.perform(patch("/api/products/{id}/stock", createdId)
@@ -112,6 +132,32 @@ class ProductIntegrationTest {
                 .andExpect(jsonPath("$.price").value(1999.99))
                 .andExpect(jsonPath("$.stockQuantity").value(5));
 
+        // Po zmianie stanu stary ETag już nie pasuje (wersja produktu i katalogu się zmieniła)
+        mockMvc.perform(get("/api/products/" + createdId)
+                        .header("Authorization", "Bearer " + adminAccessToken)
+                        .header(HttpHeaders.IF_NONE_MATCH, productETag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stockQuantity").value(5));
+        mockMvc.perform(get("/api/products")
+                        .header("Authorization", "Bearer " + adminAccessToken)
+                        .header(HttpHeaders.IF_NONE_MATCH, listETag))
+                .andExpect(status().isOk());
+
+        // Wyszukiwanie z indeksu w pamięci widzi nowy produkt i jego aktualny stan
+        mockMvc.perform(get("/api/products/search")
+                        .param("q", "kam sony")
+                        .param("minPrice", "1000")
+                        .header("Authorization", "Bearer " + adminAccessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[?(@.id == " + createdId + ")].stockQuantity").value(hasItem(5)));
+
+        // Podpowiedzi nazw (autocomplete) też widzą nowy produkt od razu
+        mockMvc.perform(get("/api/products/suggest")
+                        .param("q", "kamera s")
+                        .header("Authorization", "Bearer " + adminAccessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(hasItem(createdId.intValue())));
+
         // 4. Usunięcie produktu
         mockMvc.perform(delete("/api/products/" + createdId)
                         .header("Authorization", "Bearer " + adminAccessToken))
@@ -123,6 +169,12 @@ class ProductIntegrationTest {
                 .andReturn();
 
         int statusAfterDelete = getAfterDelete.getResponse().getStatus();
+        mockMvc.perform(get("/api/products/search")
+                        .param("q", "kamera sony")
+                        .header("Authorization", "Bearer " + adminAccessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].id").value(not(hasItem(createdId.intValue()))));
+
         // W `getProductById()` wyrzuca RuntimeException -> 400 w GlobalExceptionHandler
         assertTrue(statusAfterDelete == 404 || statusAfterDelete == 400,
                 "Po usunięciu, status powinien być 400 lub 404; faktycznie = " + statusAfterDelete);
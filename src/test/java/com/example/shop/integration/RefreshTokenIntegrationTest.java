@@ -15,6 +15,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -80,14 +81,21 @@ class RefreshTokenIntegrationTest {
         String newAccessToken = refreshMap.get("accessToken").toString();
         assertNotNull(newAccessToken, "Powinniśmy dostać nowy accessToken");
 
-        // 2) Wylogowanie (unieważniamy refreshToken w bazie)
+        // 2) Wylogowanie (unieważniamy refreshToken w bazie i access token tej sesji)
         var logoutBody = Map.of("refreshToken", refreshToken);
         mockMvc.perform(post("/api/auth/logout")
+                        .header("Authorization", "Bearer " + accessToken)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(logoutBody)))
                 .andExpect(status().isOk())
                 .andExpect(content().string("Refresh token invalidated"));
 
+        // wylogowana sesja traci dostęp, token z odświeżenia (inna sesja, ta sama sekunda) działa dalej
+        mockMvc.perform(get("/api/orders").header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/orders").header("Authorization", "Bearer " + newAccessToken))
+                .andExpect(status().isOk());
+
         // 3) Ponowne odświeżenie tym samym tokenem -> 401 Unauthorized
         var secondRefreshResult = mockMvc.perform(post("/api/auth/refresh")
                         .contentType(MediaType.APPLICATION_JSON)
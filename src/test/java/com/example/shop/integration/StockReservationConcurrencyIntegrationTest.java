@@ -0,0 +1,175 @@
+package com.example.shop.integration;
+
+import com.example.shop.dto.OrderItemRequest;
+import com.example.shop.dto.OrderRequest;
+import com.example.shop.entity.Product;
+import com.example.shop.entity.User;
+import com.example.shop.repository.CartItemRepository;
+import com.example.shop.repository.OrderRepository;
+import com.example.shop.repository.ProductRepository;
+import com.example.shop.repository.UserRepository;
+import com.example.shop.service.CartService;
+import com.example.shop.service.OrderService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * "Flash sale" na jednym produkcie: dużo równoległych rezerwacji po 1 sztukę.
+ * Sprawdzamy, że nie sprzedajemy więcej niż jest na stanie i że nikt nie dostaje konfliktu wersji (409)
+ * ani zakleszczenia (zamówienia z tymi samymi produktami w różnej kolejności).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class StockReservationConcurrencyIntegrationTest {
+
+    private static final int STOCK = 300;
+    private static final int ATTEMPTS = 1_000;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private User buyer;
+    private Product hotProduct;
+    private Product secondProduct;
+
+    @BeforeEach
+    void setUp() {
+        buyer = userRepository.save(new User("flashSaleBuyer", "secret", "ROLE_USER"));
+        hotProduct = productRepository.save(new Product("Konsola (promocja)", 1999.0, STOCK));
+        secondProduct = productRepository.save(new Product("Pad (promocja)", 199.0, STOCK));
+    }
+
+    @AfterEach
+    void tearDown() {
+        cartItemRepository.deleteAll(cartItemRepository.findByUser(buyer));
+        orderRepository.deleteAllById(orderRepository.findIdSliceForUser(buyer.getId(), null, null,
+                PageRequest.of(0, 1000)).getContent());
+        productRepository.deleteById(hotProduct.getId());
+        productRepository.deleteById(secondProduct.getId());
+        userRepository.delete(buyer);
+    }
+
+    @Test
+    void parallelReservations_NeverOversell_AndNeverConflict() throws Exception {
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger outOfStock = new AtomicInteger();
+        List<Throwable> unexpected = new CopyOnWriteArrayList<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < ATTEMPTS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    cartService.addToCart(buyer.getId(), hotProduct.getId(), 1);
+                    reserved.incrementAndGet();
+                } catch (RuntimeException ex) {
+                    if (ex.getMessage() != null && ex.getMessage().startsWith("Brak wystarczającego stanu")) {
+                        outOfStock.incrementAndGet();
+                    } else {
+                        unexpected.add(ex);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertTrue(unexpected.isEmpty(), "Nieoczekiwane błędy (np. konflikty wersji): " + unexpected);
+        assertEquals(STOCK, reserved.get());
+        assertEquals(ATTEMPTS - STOCK, outOfStock.get());
+        assertEquals(0, productRepository.findById(hotProduct.getId()).orElseThrow().getStockQuantity());
+        assertEquals(STOCK, cartItemRepository.findByUser(buyer).size());
+    }
+
+    @Test
+    void parallelOrders_WithReversedLineOrder_NoDeadlocksAndNoOversell() throws Exception {
+        // połowa zamówień ma pozycje [konsola, pad], połowa [pad, konsola] - klasyczny scenariusz zakleszczenia
+        AtomicInteger ordered = new AtomicInteger();
+        AtomicInteger outOfStock = new AtomicInteger();
+        List<Throwable> unexpected = new CopyOnWriteArrayList<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < ATTEMPTS / 2; i++) {
+            boolean reversed = i % 2 == 1;
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    orderService.createOrder(buyer, reversed
+                            ? orderOf(secondProduct, hotProduct)
+                            : orderOf(hotProduct, secondProduct));
+                    ordered.incrementAndGet();
+                } catch (RuntimeException ex) {
+                    if (ex.getMessage() != null && ex.getMessage().startsWith("Brak wystarczającego stanu")) {
+                        outOfStock.incrementAndGet();
+                    } else {
+                        unexpected.add(ex);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertTrue(unexpected.isEmpty(), "Nieoczekiwane błędy (np. zakleszczenia): " + unexpected);
+        assertEquals(STOCK, ordered.get());
+        assertEquals(ATTEMPTS / 2 - STOCK, outOfStock.get());
+        assertEquals(0, productRepository.findById(hotProduct.getId()).orElseThrow().getStockQuantity());
+        assertEquals(0, productRepository.findById(secondProduct.getId()).orElseThrow().getStockQuantity());
+    }
+
+    private static OrderRequest orderOf(Product... products) {
+        List<OrderItemRequest> items = new ArrayList<>();
+        for (Product product : products) {
+            OrderItemRequest item = new OrderItemRequest();
+            item.setProductId(product.getId());
+            item.setQuantity(1);
+            items.add(item);
+        }
+        OrderRequest request = new OrderRequest();
+        request.setItems(items);
+        return request;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.shop.integration;
+
+import com.example.shop.benchmark.LoadTestHarness;
+import com.example.shop.dto.LoginRequest;
+import com.example.shop.dto.RegisterRequest;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Profil virtual-threads: Tomcat i @Scheduled na wątkach wirtualnych + krótki test obciążeniowy przez HTTP.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "virtual-threads"})
+class VirtualThreadsIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ServletWebServerApplicationContext context;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Test
+    void requestsAndScheduledTasks_RunOnVirtualThreads() throws Exception {
+        TomcatWebServer webServer = (TomcatWebServer) context.getWebServer();
+        assertInstanceOf(VirtualThreadExecutor.class,
+                webServer.getTomcat().getConnector().getProtocolHandler().getExecutor());
+        assertInstanceOf(SimpleAsyncTaskScheduler.class, taskScheduler);
+
+        // 500 równoległych klientów - więcej niż domyślna pula Tomcata (200 wątków) i pula połączeń (20);
+        // strona katalogu to zapytanie do bazy w każdym żądaniu
+        String token = registerAndLogin();
+        LoadTestHarness.Result result = LoadTestHarness.run(
+                URI.create("http://localhost:" + port + "/api/products?size=5"), token, 500, Duration.ofSeconds(3));
+
+        // każdy klient dostał odpowiedź (żaden nie został odrzucony ani nie przekroczył timeoutu)
+        assertTrue(result.getRequests() >= 500);
+        assertEquals(0, result.getErrors());
+    }
+
+    private String registerAndLogin() {
+        String username = "vtUser-" + UUID.randomUUID().toString().substring(0, 8);
+        RegisterRequest regReq = new RegisterRequest();
+        regReq.setUsername(username);
+        regReq.setPassword("secret123");
+        restTemplate.postForEntity("/api/auth/register", regReq, String.class);
+
+        LoginRequest loginReq = new LoginRequest();
+        loginReq.setUsername(username);
+        loginReq.setPassword("secret123");
+        Map<?, ?> response = restTemplate.postForObject("/api/auth/login", loginReq, Map.class);
+        return response.get("accessToken").toString();
+    }
+}
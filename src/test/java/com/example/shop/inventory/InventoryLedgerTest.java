@@ -0,0 +1,173 @@
+package com.example.shop.inventory;
+
+import com.example.shop.entity.Product;
+import com.example.shop.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryLedgerTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private InventoryLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        ledger = new InventoryLedger(productRepository);
+        ReflectionTestUtils.setField(ledger, "enabled", true);
+        ReflectionTestUtils.setField(ledger, "stripes", 4);
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void rebuild_LoadsConfiguredProductsFromDatabase() {
+        // given
+        ReflectionTestUtils.setField(ledger, "productIds", "1, 2");
+        Product hot = new Product("Konsola", 1999.0, 42);
+        hot.setId(1L);
+        when(productRepository.findAllById(Set.of(1L, 2L))).thenReturn(List.of(hot));
+
+        // when
+        ledger.rebuild();
+
+        // then
+        assertTrue(ledger.isTracked(1L));
+        assertFalse(ledger.isTracked(2L));
+        assertEquals(42, ledger.available(1L));
+    }
+
+    @Test
+    void tryReserve_CollectsQuantitySpreadAcrossStripes() {
+        // given - 10 sztuk na 4 paskach (3,3,2,2)
+        ledger.track(1L, 10);
+
+        // when + then
+        assertTrue(ledger.tryReserve(1L, 7));
+        assertEquals(3, ledger.available(1L));
+        assertFalse(ledger.tryReserve(1L, 4));
+        assertEquals(3, ledger.available(1L));
+        assertTrue(ledger.tryReserve(1L, 3));
+        assertEquals(0, ledger.available(1L));
+    }
+
+    @Test
+    void tryReserve_ParallelBuyers_NeverOversell() throws Exception {
+        // given
+        ledger.track(1L, 1_000);
+        AtomicInteger reserved = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 5_000; i++) {
+            futures.add(executor.submit(() -> {
+                if (ledger.tryReserve(1L, 1)) {
+                    reserved.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then
+        assertEquals(1_000, reserved.get());
+        assertEquals(0, ledger.available(1L));
+    }
+
+    @Test
+    void tryReserveAll_ShortOnOneProduct_ReservesNothing() {
+        // given
+        ledger.track(1L, 10);
+        ledger.track(2L, 1);
+
+        // when
+        boolean reserved = ledger.tryReserveAll(Map.of(1L, 5, 2L, 3));
+
+        // then
+        assertFalse(reserved);
+        assertEquals(10, ledger.available(1L));
+        assertEquals(1, ledger.available(2L));
+        ledger.flush();
+        verify(productRepository, never()).adjustStock(anyLong(), anyInt());
+    }
+
+    @Test
+    void tryReserve_RolledBackTransaction_ReturnsStock() {
+        // given
+        ledger.track(1L, 5);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // when
+        assertTrue(ledger.tryReserve(1L, 2));
+        for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+            sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        // then
+        assertEquals(5, ledger.available(1L));
+        ledger.flush();
+        verify(productRepository, never()).adjustStock(anyLong(), anyInt());
+    }
+
+    @Test
+    void flush_WritesOneAggregatedUpdatePerProduct() {
+        // given
+        ledger.track(1L, 100);
+        for (int i = 0; i < 10; i++) {
+            ledger.tryReserve(1L, 3);
+        }
+        ledger.release(1L, 5);
+
+        // when
+        ledger.flush();
+        ledger.flush(); // nic nowego - brak kolejnego UPDATE
+
+        // then
+        verify(productRepository, times(1)).adjustStock(1L, -25);
+    }
+
+    @Test
+    void flush_Failure_KeepsDeltaForNextAttempt() {
+        // given
+        ledger.track(1L, 10);
+        ledger.tryReserve(1L, 4);
+        when(productRepository.adjustStock(1L, -4))
+                .thenThrow(new RuntimeException("timeout"))
+                .thenReturn(1);
+
+        // when
+        ledger.flush();
+        ledger.flush();
+
+        // then
+        assertEquals(1, ledger.getFailedFlushes());
+        verify(productRepository, times(2)).adjustStock(1L, -4);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.shop.inventory;
+
+import com.example.shop.repository.CartItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReservationExpiryQueueTest {
+
+    @Mock
+    private CartItemRepository cartItemRepository;
+
+    private ReservationExpiryQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        queue = new ReservationExpiryQueue(cartItemRepository);
+    }
+
+    @Test
+    void drainExpired_ReturnsOnlyReservationsPastDeadline() {
+        // given
+        LocalDateTime now = LocalDateTime.now();
+        queue.schedule(1L, now.minusSeconds(5));
+        queue.schedule(2L, now.plusMinutes(15));
+        queue.schedule(3L, now.minusSeconds(1));
+
+        // when
+        List<Long> expired = queue.drainExpired();
+
+        // then - najstarsze najpierw, aktualna rezerwacja zostaje w kolejce
+        assertEquals(List.of(1L, 3L), expired);
+        assertEquals(1, queue.size());
+        assertTrue(queue.drainExpired().isEmpty());
+    }
+
+    @Test
+    void rebuild_LoadsDeadlinesFromCartItems() {
+        // given
+        LocalDateTime now = LocalDateTime.now();
+        queue.schedule(99L, now.minusSeconds(1)); // stary wpis sprzed restartu - znika
+        when(cartItemRepository.findReservationDeadlines()).thenReturn(List.of(
+                new ReservationDeadline(10L, now.minusMinutes(1)),
+                new ReservationDeadline(11L, now.plusMinutes(10))));
+
+        // when
+        queue.rebuild();
+
+        // then
+        assertEquals(2, queue.size());
+        assertEquals(List.of(10L), queue.drainExpired());
+    }
+}
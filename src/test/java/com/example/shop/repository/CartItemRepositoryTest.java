@@ -1,13 +1,18 @@
 package com.example.shop.repository;
 
+import com.example.shop.dto.ProductQuantityRow;
 import com.example.shop.entity.CartItem;
 import com.example.shop.entity.Product;
 import com.example.shop.entity.User;
+import com.example.shop.service.CartService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDateTime;
@@ -30,6 +35,12 @@ public class CartItemRepositoryTest {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private User testUser;
     private Product testProduct1;
     private Product testProduct2;
@@ -213,4 +224,33 @@ public class CartItemRepositoryTest {
         Optional<CartItem> foundOpt = cartItemRepository.findById(cartItem.getId());
         assertTrue(foundOpt.isEmpty(), "CartItem should be removed from repo");
     }
+
+    @Test
+    void expiredReservations_BulkSumRestoreAndDelete() {
+        // given - dwie wygasłe rezerwacje tego samego produktu i jedna aktualna
+        testProduct1.setStockQuantity(0);
+        productRepository.save(testProduct1);
+        LocalDateTime past = LocalDateTime.now().minusMinutes(5);
+        CartItem expired1 = cartItemRepository.save(new CartItem(testUser, testProduct1, 2, past, past));
+        CartItem expired2 = cartItemRepository.save(new CartItem(testUser, testProduct1, 3, past, past));
+        cartItemRepository.save(new CartItem(testUser, testProduct2, 1, LocalDateTime.now(),
+                LocalDateTime.now().plusMinutes(10)));
+
+        // when
+        List<Long> ids = cartItemRepository.findExpiredIds(LocalDateTime.now(), Limit.of(10));
+        List<ProductQuantityRow> sums = cartItemRepository.sumQuantitiesByProduct(ids);
+        int deleted = cartItemRepository.deleteAllByIdIn(ids);
+        jdbcTemplate.update(CartService.restockSql(1), testProduct1.getId(), sums.getFirst().getQuantity().intValue(),
+                testProduct1.getId());
+        entityManager.clear();
+
+        // then
+        assertEquals(List.of(expired1.getId(), expired2.getId()), ids);
+        assertEquals(1, sums.size());
+        assertEquals(testProduct1.getId(), sums.getFirst().getProductId());
+        assertEquals(5L, sums.getFirst().getQuantity());
+        assertEquals(2, deleted);
+        assertEquals(5, productRepository.findById(testProduct1.getId()).orElseThrow().getStockQuantity());
+        assertEquals(1, cartItemRepository.count());
+    }
 }
@@ -1,18 +1,29 @@
 package com.example.shop.repository;
 
+import com.example.shop.dto.OrderDto;
+import com.example.shop.dto.OrderHistoryRow;
 import com.example.shop.entity.*;
+import com.example.shop.mapper.OrderMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -35,6 +46,9 @@ class OrderRepositoryTest {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     private User testUser;
     private Product testProduct1;
     private Product testProduct2;
@@ -147,4 +161,222 @@ class OrderRepositoryTest {
         // Sprawdzamy, czy order i item zostały usunięte
         assertTrue(orderRepository.findById(order.getId()).isEmpty(), "Order should be deleted");
     }
+
+    @Test
+    void findByUserId_returnsOnlyOrdersOfThatUser() {
+        // given
+        User otherUser = new User("otheruser", "encodedPass");
+        otherUser.setRole("ROLE_USER");
+        userRepository.save(otherUser);
+
+        Order mine = new Order();
+        mine.setUser(testUser);
+        orderRepository.save(mine);
+
+        Order foreign = new Order();
+        foreign.setUser(otherUser);
+        orderRepository.save(foreign);
+
+        // when
+        List<Long> result = orderRepository.findIdSliceForUser(testUser.getId(), null, null,
+                PageRequest.of(0, 10)).getContent();
+
+        // then
+        assertEquals(List.of(mine.getId()), result);
+    }
+
+    @Test
+    void findIdSliceForUser_filtersByDateRangeAndPages() {
+        // given - trzy zamówienia usera z różnych dni
+        LocalDateTime base = LocalDateTime.of(2025, 1, 10, 12, 0);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Order order = new Order();
+            order.setUser(testUser);
+            order.setCreatedAt(base.plusDays(i));
+            ids.add(orderRepository.save(order).getId());
+        }
+
+        // when - zakres obejmuje tylko 2 ostatnie, strona ma rozmiar 1
+        Slice<Long> firstPage = orderRepository.findIdSliceForUser(testUser.getId(),
+                base.plusDays(1), base.plusDays(5), PageRequest.of(0, 1));
+        Slice<Long> secondPage = orderRepository.findIdSliceForUser(testUser.getId(),
+                base.plusDays(1), base.plusDays(5), PageRequest.of(1, 1));
+        Slice<Long> unbounded = orderRepository.findIdSliceForUser(testUser.getId(),
+                null, null, PageRequest.of(0, 10));
+
+        // then - najnowsze najpierw
+        assertEquals(List.of(ids.get(2)), firstPage.getContent());
+        assertTrue(firstPage.hasNext());
+        assertEquals(List.of(ids.get(1)), secondPage.getContent());
+        assertFalse(secondPage.hasNext());
+        assertEquals(3, unbounded.getContent().size());
+    }
+
+    @Test
+    void singleOrder_isLoadedWithSingleStatement() {
+        // given - zamówienie z 2 pozycjami (łącznie z userem i produktami)
+        Order order = new Order();
+        order.setUser(testUser);
+
+        OrderItem item1 = new OrderItem();
+        item1.setOrder(order);
+        item1.setProduct(testProduct1);
+        item1.setQuantity(1);
+        item1.setPriceAtOrderTime(testProduct1.getPrice());
+
+        OrderItem item2 = new OrderItem();
+        item2.setOrder(order);
+        item2.setProduct(testProduct2);
+        item2.setQuantity(2);
+        item2.setPriceAtOrderTime(testProduct2.getPrice());
+
+        order.setItems(new HashSet<>(Set.of(item1, item2)));
+        orderRepository.save(order);
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // when - pobranie i zmapowanie tak, jak robi to kontroler
+        OrderDto single = OrderMapper.toDto(orderRepository.findWithItemsById(order.getId()).orElseThrow());
+
+        // then - jedno zapytanie SQL zamiast 1 + N + N*M
+        assertEquals(2, single.getItems().size());
+        assertEquals("testuser", single.getUsername());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void historyRows_areProjectedWithoutLoadingEntities() {
+        // given
+        Order order = new Order();
+        order.setUser(testUser);
+
+        OrderItem item1 = new OrderItem();
+        item1.setOrder(order);
+        item1.setProduct(testProduct1);
+        item1.setQuantity(2);
+        item1.setPriceAtOrderTime(testProduct1.getPrice());
+
+        OrderItem item2 = new OrderItem();
+        item2.setOrder(order);
+        item2.setProduct(testProduct2);
+        item2.setQuantity(1);
+        item2.setPriceAtOrderTime(testProduct2.getPrice());
+
+        order.setItems(new HashSet<>(Set.of(item1, item2)));
+        orderRepository.save(order);
+
+        Order emptyOrder = new Order();
+        emptyOrder.setUser(testUser);
+        orderRepository.save(emptyOrder);
+
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // when
+        List<OrderDto> dtos = OrderMapper.fromHistoryRows(
+                orderRepository.findHistoryRowsByUserId(testUser.getId()));
+
+        // then - jedno zapytanie i żadnej encji w persistence context
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+
+        assertEquals(2, dtos.size());
+        OrderDto withItems = dtos.stream().filter(d -> d.getId().equals(order.getId())).findFirst().orElseThrow();
+        assertEquals(2, withItems.getItems().size());
+        assertEquals("testuser", withItems.getUsername());
+        assertTrue(withItems.getItems().stream()
+                .anyMatch(i -> i.getProductName().equals("Laptop") && i.getQuantity() == 2));
+        OrderDto withoutItems = dtos.stream().filter(d -> d.getId().equals(emptyOrder.getId())).findFirst().orElseThrow();
+        assertTrue(withoutItems.getItems().isEmpty());
+
+        // wiersze dla wybranej strony id
+        assertEquals(2, orderRepository.findHistoryRowsByOrderIds(List.of(order.getId())).size());
+    }
+
+    @Test
+    void historyPage_isLoadedWithTwoStatementsRegardlessOfOrderCount() {
+        // given - 5 zamówień po 2 pozycje; ścieżka GET /api/orders: strona id + jedno zapytanie projekcyjne
+        for (int n = 0; n < 5; n++) {
+            Order order = new Order();
+            order.setUser(testUser);
+            Set<OrderItem> items = new HashSet<>();
+            for (Product product : List.of(testProduct1, testProduct2)) {
+                OrderItem item = new OrderItem();
+                item.setOrder(order);
+                item.setProduct(product);
+                item.setQuantity(1);
+                item.setPriceAtOrderTime(product.getPrice());
+                items.add(item);
+            }
+            order.setItems(items);
+            orderRepository.save(order);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // when
+        Slice<Long> ids = orderRepository.findIdSliceForUser(testUser.getId(), null, null, PageRequest.of(0, 10));
+        List<OrderDto> dtos = OrderMapper.fromHistoryRows(orderRepository.findHistoryRowsByOrderIds(ids.getContent()));
+
+        // then - bez N+1: 2 zapytania niezależnie od liczby zamówień i pozycji, żadnej encji
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(5, dtos.size());
+        assertTrue(dtos.stream().allMatch(d -> d.getItems().size() == 2));
+    }
+
+    @Test
+    void streamHistoryRows_areGroupedIntoOrdersOneByOne() {
+        // given - dwa zamówienia po dwie pozycje
+        List<Long> orderIds = new ArrayList<>();
+        for (int n = 0; n < 2; n++) {
+            Order order = new Order();
+            order.setUser(testUser);
+            Set<OrderItem> items = new HashSet<>();
+            for (Product product : List.of(testProduct1, testProduct2)) {
+                OrderItem item = new OrderItem();
+                item.setOrder(order);
+                item.setProduct(product);
+                item.setQuantity(1);
+                item.setPriceAtOrderTime(product.getPrice());
+                items.add(item);
+            }
+            order.setItems(items);
+            orderIds.add(orderRepository.save(order).getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // when
+        List<OrderDto> exported = new ArrayList<>();
+        long count;
+        try (Stream<OrderHistoryRow> rows = orderRepository.streamHistoryRows(null, null)) {
+            count = OrderMapper.forEachOrder(rows, exported::add);
+        }
+
+        // then - kolejność po id, każde zamówienie z kompletem pozycji
+        assertEquals(count, exported.size());
+        List<OrderDto> ours = exported.stream().filter(d -> orderIds.contains(d.getId())).toList();
+        assertEquals(orderIds, ours.stream().map(OrderDto::getId).toList());
+        assertTrue(ours.stream().allMatch(d -> d.getItems().size() == 2));
+
+        // zakres dat, który nie obejmuje żadnego zamówienia
+        try (Stream<OrderHistoryRow> rows = orderRepository.streamHistoryRows(
+                LocalDateTime.now().plusDays(1), null)) {
+            assertEquals(0, rows.count());
+        }
+    }
 }
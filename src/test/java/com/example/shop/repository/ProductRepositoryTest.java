@@ -1,10 +1,12 @@
 package com.example.shop.repository;
 
+import com.example.shop.dto.ProductNameRow;
 import com.example.shop.entity.Product;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
 import org.springframework.test.context.ActiveProfiles;
@@ -101,4 +103,33 @@ class ProductRepositoryTest {
         Optional<Product> foundOpt = productRepository.findById(product.getId());
         assertTrue(foundOpt.isEmpty(), "Product should be removed from repo");
     }
+
+    @Test
+    void findByIdGreaterThan_ReturnsNextKeysetPage() {
+        // given
+        Product product1 = productRepository.save(new Product("Monitor", 900.0));
+        Product product2 = productRepository.save(new Product("Kamera", 300.0));
+        Product product3 = productRepository.save(new Product("Mikrofon", 250.0));
+
+        // when
+        List<Product> page = productRepository.findByIdGreaterThanOrderByIdAsc(product1.getId(), Limit.of(1));
+
+        // then
+        assertEquals(1, page.size());
+        assertEquals(product2.getId(), page.getFirst().getId());
+        assertTrue(productRepository.findByIdGreaterThanOrderByIdAsc(product3.getId(), Limit.of(10)).isEmpty());
+    }
+
+    @Test
+    void findAllNames_ReturnsIdAndNameOfEveryProduct() {
+        // given
+        Product product = productRepository.save(new Product("Głośnik JBL", 399.0, 3));
+
+        // when
+        List<ProductNameRow> names = productRepository.findAllNames();
+
+        // then
+        assertTrue(names.stream().anyMatch(row ->
+                row.getId().equals(product.getId()) && row.getName().equals("Głośnik JBL")));
+    }
 }
@@ -7,6 +7,7 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.test.context.ActiveProfiles; // profil testowy
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -65,6 +66,24 @@ class UserRepositoryTest {
         assertEquals("ROLE_ADMIN", saved.getRole());
     }
 
+    @Test
+    void findUsernamesByIdBetween_ReturnsOnlyUsersAddedAfterGivenId() {
+        // given
+        User older = new User("olderUser", "pass");
+        older.setRole("ROLE_USER");
+        long afterId = userRepository.save(older).getId();
+        User newer = new User("newerUser", "pass");
+        newer.setRole("ROLE_USER");
+        userRepository.save(newer);
+
+        // when
+        long maxId = userRepository.findMaxId();
+        List<String> added = userRepository.findUsernamesByIdBetween(afterId, maxId);
+
+        // then
+        assertEquals(List.of("newerUser"), added);
+    }
+
     @Test
     void uniqueUsername_ThrowsException_IfDuplicate() {
         // given
@@ -0,0 +1,139 @@
+package com.example.shop.search;
+
+import com.example.shop.dto.ProductNameRow;
+import com.example.shop.dto.ProductQuantityRow;
+import com.example.shop.dto.ProductSuggestionDto;
+import com.example.shop.entity.Product;
+import com.example.shop.event.ProductChangedEvent;
+import com.example.shop.repository.OrderItemRepository;
+import com.example.shop.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductAutocompleteTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private OrderItemRepository orderItemRepository;
+
+    private ProductAutocomplete productAutocomplete;
+
+    @BeforeEach
+    void setUp() {
+        productAutocomplete = new ProductAutocomplete(productRepository, orderItemRepository);
+        when(productRepository.findAllNames()).thenReturn(List.of(
+                new ProductNameRow(1L, "Kabel HDMI"),
+                new ProductNameRow(2L, "Kabel USB-C"),
+                new ProductNameRow(3L, "Kamera Sony"),
+                new ProductNameRow(4L, "Łódka dmuchana"),
+                new ProductNameRow(5L, "Klawiatura")));
+        when(orderItemRepository.sumQuantitiesByProduct()).thenReturn(List.of(
+                new ProductQuantityRow(2L, 50L),
+                new ProductQuantityRow(3L, 7L)));
+        productAutocomplete.rebuild();
+    }
+
+    @Test
+    void suggest_RanksByOrderedQuantity() {
+        assertEquals(List.of(2L, 3L, 1L, 5L), ids(productAutocomplete.suggest("k", null)));
+        assertEquals(List.of(2L, 1L), ids(productAutocomplete.suggest("KABEL ", null)));
+        assertEquals(List.of(2L), ids(productAutocomplete.suggest("ka", 1)));
+        assertEquals(List.of(4L), ids(productAutocomplete.suggest("lod", null)));
+        assertEquals(List.of(), ids(productAutocomplete.suggest("x", null)));
+        assertEquals(List.of(), productAutocomplete.suggest(" ", null));
+    }
+
+    @Test
+    void onProductChanged_RenameAndDelete_AreVisibleBeforeRebuild() {
+        // zmiana nazwy zachowuje popularność
+        Product renamed = new Product("Przewód USB-C", 29.0, 1);
+        renamed.setId(2L);
+        when(productRepository.findById(2L)).thenReturn(Optional.of(renamed));
+        productAutocomplete.onProductChanged(new ProductChangedEvent(2L));
+
+        // nowy produkt
+        Product added = new Product("Kabel optyczny", 15.0, 1);
+        added.setId(6L);
+        when(productRepository.findById(6L)).thenReturn(Optional.of(added));
+        productAutocomplete.onProductChanged(new ProductChangedEvent(6L));
+
+        // usunięcie
+        when(productRepository.findById(1L)).thenReturn(Optional.empty());
+        productAutocomplete.onProductChanged(new ProductChangedEvent(1L));
+
+        assertEquals(List.of(6L), ids(productAutocomplete.suggest("kabel", null)));
+        assertEquals(List.of(2L), ids(productAutocomplete.suggest("prz", null)));
+        assertEquals(List.of(3L, 6L, 5L), ids(productAutocomplete.suggest("k", null)));
+        assertEquals(5, productAutocomplete.size());
+        verify(productRepository, times(1)).findAllNames();
+    }
+
+    @Test
+    void onProductChanged_StockOnlyChange_KeepsBaseEntry() {
+        Product sameName = new Product("Kamera Sony", 1999.0, 0);
+        sameName.setId(3L);
+        when(productRepository.findById(3L)).thenReturn(Optional.of(sameName));
+
+        productAutocomplete.onProductChanged(new ProductChangedEvent(3L));
+        productAutocomplete.rebuildIfStale();
+
+        assertEquals(List.of(3L), ids(productAutocomplete.suggest("kam", null)));
+        verify(productRepository, times(1)).findAllNames();
+    }
+
+    @Test
+    void suggest_LargeCatalog_ReturnsMostPopularMatchesInOrder() {
+        // given - czas odpowiedzi przy milionie nazw mierzy ProductAutocompleteBenchmark
+        String[] words = {"kabel", "ładowarka", "etui", "słuchawki", "monitor", "klawiatura", "mysz", "dysk"};
+        int count = 100_000;
+        Random random = new Random(42);
+        List<ProductNameRow> rows = new ArrayList<>(count);
+        List<ProductQuantityRow> sold = new ArrayList<>();
+        Map<Long, Long> popularity = new HashMap<>();
+        for (long i = 1; i <= count; i++) {
+            rows.add(new ProductNameRow(i, words[random.nextInt(words.length)] + " " + Long.toString(i, 36)));
+            if (i % 10 == 0) {
+                long quantity = random.nextInt(1000);
+                sold.add(new ProductQuantityRow(i, quantity));
+                popularity.put(i, quantity);
+            }
+        }
+        when(productRepository.findAllNames()).thenReturn(rows);
+        when(orderItemRepository.sumQuantitiesByProduct()).thenReturn(sold);
+        productAutocomplete.rebuild();
+
+        // when
+        List<ProductSuggestionDto> top = productAutocomplete.suggest("kab", 10);
+
+        // then - same "kabel ...", od najpopularniejszego, a pierwszy to najczęściej kupowany kabel w ogóle
+        assertEquals(10, top.size());
+        assertTrue(top.stream().allMatch(s -> s.getName().startsWith("kabel")));
+        List<Long> quantities = top.stream().map(s -> popularity.getOrDefault(s.getId(), 0L)).toList();
+        for (int i = 1; i < quantities.size(); i++) {
+            assertTrue(quantities.get(i - 1) >= quantities.get(i), "kolejność: " + quantities);
+        }
+        long bestCable = rows.stream().filter(r -> r.getName().startsWith("kabel"))
+                .mapToLong(r -> popularity.getOrDefault(r.getId(), 0L)).max().orElseThrow();
+        assertEquals(bestCable, quantities.get(0));
+    }
+
+    private static List<Long> ids(List<ProductSuggestionDto> suggestions) {
+        return suggestions.stream().map(ProductSuggestionDto::getId).toList();
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.shop.search;
+
+import com.example.shop.dto.ProductSearchResultDto;
+import com.example.shop.entity.Product;
+import com.example.shop.event.ProductChangedEvent;
+import com.example.shop.event.ProductImportEvent;
+import com.example.shop.event.ProductStockReleasedEvent;
+import com.example.shop.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSearchIndexTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductSearchIndex productSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        productSearchIndex = new ProductSearchIndex(productRepository);
+        when(productRepository.findAll()).thenReturn(List.of(
+                product(1L, "Ładowarka USB-C 65W", 129.0),
+                product(2L, "Kabel USB-C", 29.0),
+                product(3L, "Kabel HDMI", 39.0),
+                product(4L, "Laptop", 3999.0)));
+        productSearchIndex.rebuild();
+    }
+
+    @Test
+    void search_PrefixTokens_AreAndedAndAccentInsensitive() {
+        assertEquals(List.of(1L), ids(productSearchIndex.search("lad usb", null, null, null)));
+        assertEquals(List.of(3L, 2L), ids(productSearchIndex.search("KAB", null, null, null)));
+        assertEquals(List.of(), ids(productSearchIndex.search("kabel laptop", null, null, null)));
+    }
+
+    @Test
+    void search_ExactTokenMatchesRankFirst() {
+        // "laptop" to całe słowo w produkcie 4 i tylko prefiks w "laptopowa" - produkt 4 idzie pierwszy
+        productSearchIndex.index(product(5L, "Laptopowa torba", 99.0));
+        assertEquals(List.of(4L, 5L), ids(productSearchIndex.search("laptop", null, null, null)));
+    }
+
+    @Test
+    void search_BlankQuery_ReturnsTopOfWholeCatalogInRankingOrder() {
+        ProductSearchResultDto result = productSearchIndex.search(" ", null, null, 2);
+
+        assertEquals(List.of(3L, 2L), ids(result));
+        assertEquals(4, result.getTotal());
+        assertEquals(List.of(3L, 2L, 4L, 1L), ids(productSearchIndex.search(null, null, null, 10)));
+    }
+
+    @Test
+    void search_PriceFilter_DoesNotNarrowFacets() {
+        ProductSearchResultDto result = productSearchIndex.search("usb", null, 100.0, 10);
+
+        assertEquals(List.of(2L), ids(result));
+        assertEquals(1, result.getTotal());
+        // przedziały: [0,50), [50,100), [100,500), [500,1000), [1000,∞)
+        assertEquals(5, result.getPriceFacets().size());
+        assertEquals(1, result.getPriceFacets().get(0).getCount());
+        assertEquals(1, result.getPriceFacets().get(2).getCount());
+        assertNull(result.getPriceFacets().get(4).getTo());
+    }
+
+    @Test
+    void onProductChanged_UpdatesAndRemovesSingleProduct() {
+        // zmiana nazwy
+        when(productRepository.findById(3L)).thenReturn(Optional.of(product(3L, "Przewód DisplayPort", 49.0)));
+        productSearchIndex.onProductChanged(new ProductChangedEvent(3L));
+        assertEquals(List.of(2L), ids(productSearchIndex.search("kabel", null, null, null)));
+        assertEquals(List.of(3L), ids(productSearchIndex.search("displ", null, null, null)));
+
+        // usunięcie
+        when(productRepository.findById(2L)).thenReturn(Optional.empty());
+        productSearchIndex.onProductChanged(new ProductChangedEvent(2L));
+        assertEquals(List.of(), ids(productSearchIndex.search("kabel", null, null, null)));
+        assertEquals(3, productSearchIndex.size());
+    }
+
+    @Test
+    void onProductChanged_ManyProducts_RebuildsOnNextTick() {
+        when(productRepository.findAll()).thenReturn(List.of(product(9L, "Mysz", 59.0)));
+
+        productSearchIndex.onProductChanged(new ProductChangedEvent(null));
+        assertEquals(4, productSearchIndex.size());
+
+        productSearchIndex.rebuildIfStale();
+        assertEquals(List.of(9L), ids(productSearchIndex.search("mysz", null, null, null)));
+        productSearchIndex.rebuildIfStale();
+        verify(productRepository, times(2)).findAll();
+    }
+
+    @Test
+    void onProductImport_RebuildsOnceAfterLastBatch() {
+        when(productRepository.findAll()).thenReturn(List.of(product(9L, "Mysz", 59.0)));
+
+        // paczki importu - bez przebudowy
+        productSearchIndex.onProductImport(new ProductImportEvent(false));
+        productSearchIndex.onProductImport(new ProductImportEvent(false));
+        productSearchIndex.rebuildIfStale();
+        assertEquals(4, productSearchIndex.size());
+
+        // koniec importu - jedna przebudowa
+        productSearchIndex.onProductImport(new ProductImportEvent(true));
+        productSearchIndex.rebuildIfStale();
+        assertEquals(List.of(9L), ids(productSearchIndex.search("mysz", null, null, null)));
+        verify(productRepository, times(2)).findAll();
+    }
+
+    @Test
+    void onStockReleased_ReindexesOnlyReleasedProducts() {
+        // given - produktom 2 i 3 wrócił stan, 3 w międzyczasie usunięto
+        Product restocked = product(2L, "Kabel USB-C", 29.0);
+        restocked.setStockQuantity(15);
+        when(productRepository.findAllById(Set.of(2L, 3L))).thenReturn(List.of(restocked));
+
+        // when
+        productSearchIndex.onStockReleased(new ProductStockReleasedEvent(Set.of(2L, 3L)));
+
+        // then - bez przebudowy z findAll
+        assertEquals(15, productSearchIndex.search("usb", null, 100.0, null).getItems().get(0).getStockQuantity());
+        assertEquals(List.of(2L), ids(productSearchIndex.search("kabel", null, null, null)));
+        productSearchIndex.rebuildIfStale();
+        verify(productRepository, times(1)).findAll();
+    }
+
+    @Test
+    void search_LargeCatalog_RanksExactTokenFirst() {
+        List<Product> catalog = new ArrayList<>();
+        String[] words = {"kabel", "ładowarka", "etui", "słuchawki", "monitor", "klawiatura", "mysz", "dysk"};
+        for (long i = 1; i <= 100_000; i++) {
+            catalog.add(product(i, words[(int) (i % words.length)] + " model " + i, (double) (i % 2000)));
+        }
+        when(productRepository.findAll()).thenReturn(catalog);
+        productSearchIndex.rebuild();
+
+        // "801" pasuje też jako prefiks do 8017, 80105...; dokładne trafienie jest pierwsze
+        ProductSearchResultDto result = productSearchIndex.search("ladowarka 801", null, null, null);
+        assertEquals(801L, result.getItems().get(0).getId());
+        assertTrue(result.getTotal() > 1);
+    }
+
+    private static List<Long> ids(ProductSearchResultDto result) {
+        return result.getItems().stream().map(Product::getId).toList();
+    }
+
+    private static Product product(Long id, String name, double price) {
+        Product product = new Product(name, price, 10);
+        product.setId(id);
+        product.setVersion(0L);
+        return product;
+    }
+}
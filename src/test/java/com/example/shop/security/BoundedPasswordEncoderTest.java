@@ -0,0 +1,94 @@
+package com.example.shop.security;
+
+import com.example.shop.exception.ServiceOverloadedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        encoder.close();
+    }
+
+    @Test
+    void encodeAndMatches_RunOnPoolAndAreMeasured() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 2, 10);
+
+        String hash = encoder.encode("secret123");
+
+        assertTrue(hash.startsWith("$2a$04$"));
+        assertTrue(encoder.matches("secret123", hash));
+        assertFalse(encoder.matches("wrong", hash));
+        assertEquals(3L, encoder.getStats().get("completed"));
+        assertTrue((double) encoder.getStats().get("avgHashMillis") > 0);
+    }
+
+    @Test
+    void saturatedPool_RejectsImmediately() throws Exception {
+        // given - 1 wątek zajęty + 1 miejsce w kolejce zajęte
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(new BlockingEncoder(started, release), 1, 1);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+        while ((int) encoder.getStats().get("queueDepth") < 1) {
+            Thread.onSpinWait();
+        }
+
+        // when & then - trzecie żądanie nie czeka, tylko od razu dostaje 503
+        long start = System.nanoTime();
+        assertThrows(ServiceOverloadedException.class, () -> encoder.matches("c", "x"));
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(1L, encoder.getStats().get("rejected"));
+
+        release.countDown();
+        assertEquals("hash-a", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hash-b", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void delegateException_IsRethrownToCaller() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 1, 1);
+
+        // BCrypt odrzuca null jako hasło
+        assertThrows(IllegalArgumentException.class, () -> encoder.encode(null));
+    }
+
+    private static final class BlockingEncoder implements PasswordEncoder {
+        private final CountDownLatch started;
+        private final CountDownLatch release;
+
+        private BlockingEncoder(CountDownLatch started, CountDownLatch release) {
+            this.started = started;
+            this.release = release;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return "hash-" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.shop.security;
+
+import com.example.shop.entity.User;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private JwtService jwtService;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey", "bardzotrudnehaslodlaJWTbardzotrudnehaslo");
+        ReflectionTestUtils.setField(jwtService, "jwtExpirationInMs", 60_000L);
+        jwtService.init();
+    }
+
+    @Test
+    void parseToken_ReturnsSubjectAndExpiry() {
+        // given
+        String token = jwtService.generateToken("testuser");
+
+        // when
+        JwtClaims claims = jwtService.parseToken(token);
+
+        // then
+        assertEquals("testuser", claims.getUsername());
+        assertTrue(claims.getExpiration().getTime() > System.currentTimeMillis());
+        assertTrue(claims.getRoles().isEmpty());
+        assertTrue(jwtService.isTokenValid(claims, "testuser"));
+        assertFalse(jwtService.isTokenValid(claims, "otheruser"));
+    }
+
+    @Test
+    void parseToken_TamperedSignature_Throws() {
+        // given
+        String token = jwtService.generateToken("testuser");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        // when + then
+        assertThrows(JwtException.class, () -> jwtService.parseToken(tampered));
+    }
+
+    @Test
+    void parseToken_Expired_Throws() {
+        // given
+        ReflectionTestUtils.setField(jwtService, "jwtExpirationInMs", -1_000L);
+        String token = jwtService.generateToken("testuser");
+
+        // when + then
+        assertThrows(ExpiredJwtException.class, () -> jwtService.parseToken(token));
+    }
+
+    @Test
+    void generateToken_ForUser_CarriesUserIdRolesAndTokenId() {
+        // given
+        User user = new User("adminuser", "encoded", "ROLE_ADMIN");
+        user.setId(7L);
+
+        // when
+        JwtClaims claims = jwtService.parseToken(jwtService.generateToken(user));
+
+        // then
+        assertEquals("adminuser", claims.getUsername());
+        assertEquals(7L, claims.getUserId());
+        assertEquals(List.of("ROLE_ADMIN"), claims.getRoles());
+        assertNotNull(claims.getTokenId());
+        assertNotNull(claims.getIssuedAt());
+        assertTrue(claims.isSelfContained());
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.shop.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingTest {
+
+    @Test
+    void legacyBcryptHash_MatchesAndNeedsUpgrade() {
+        PasswordEncoder encoder = PasswordHashing.delegatingEncoder(PasswordHashing.BCRYPT, 4, 1000);
+        String legacy = new BCryptPasswordEncoder(4).encode("secret123");
+
+        assertTrue(encoder.matches("secret123", legacy));
+        assertTrue(encoder.upgradeEncoding(legacy));
+
+        String current = encoder.encode("secret123");
+        assertTrue(current.startsWith("{bcrypt}$2a$04$"));
+        assertTrue(encoder.matches("secret123", current));
+        assertFalse(encoder.upgradeEncoding(current));
+    }
+
+    @Test
+    void changedBcryptCost_InEitherDirection_NeedsUpgrade() {
+        String cost4 = PasswordHashing.delegatingEncoder(PasswordHashing.BCRYPT, 4, 1000).encode("secret123");
+        String cost6 = PasswordHashing.delegatingEncoder(PasswordHashing.BCRYPT, 6, 1000).encode("secret123");
+        PasswordEncoder encoder = PasswordHashing.delegatingEncoder(PasswordHashing.BCRYPT, 5, 1000);
+
+        assertTrue(encoder.upgradeEncoding(cost4));
+        assertTrue(encoder.upgradeEncoding(cost6));
+        assertTrue(encoder.matches("secret123", cost6));
+    }
+
+    @Test
+    void pbkdf2_VerifiesOldBcryptAndEncodesNewHashes() {
+        String bcrypt = PasswordHashing.delegatingEncoder(PasswordHashing.BCRYPT, 4, 1000).encode("secret123");
+        PasswordEncoder encoder = PasswordHashing.delegatingEncoder(PasswordHashing.PBKDF2, 4, 1000);
+
+        assertTrue(encoder.matches("secret123", bcrypt));
+        assertTrue(encoder.upgradeEncoding(bcrypt));
+
+        String pbkdf2 = encoder.encode("secret123");
+        assertTrue(pbkdf2.startsWith("{pbkdf2}1000$"));
+        assertTrue(encoder.matches("secret123", pbkdf2));
+        assertFalse(encoder.matches("wrong", pbkdf2));
+        assertFalse(encoder.upgradeEncoding(pbkdf2));
+    }
+
+    @Test
+    void changedPbkdf2Iterations_OldHashStillMatchesAndNeedsUpgrade() {
+        // given - hash zapisany przy 1000 iteracji, potem konfiguracja zmieniona na 2000
+        String iterations1000 = PasswordHashing.delegatingEncoder(PasswordHashing.PBKDF2, 4, 1000).encode("secret123");
+        PasswordEncoder encoder = PasswordHashing.delegatingEncoder(PasswordHashing.PBKDF2, 4, 2000);
+
+        // when + then - logowanie dalej działa, a hash zostanie przeliczony
+        assertTrue(encoder.matches("secret123", iterations1000));
+        assertFalse(encoder.matches("wrong", iterations1000));
+        assertTrue(encoder.upgradeEncoding(iterations1000));
+
+        String iterations2000 = encoder.encode("secret123");
+        assertTrue(iterations2000.startsWith("{pbkdf2}2000$"));
+        assertFalse(encoder.upgradeEncoding(iterations2000));
+    }
+
+    @Test
+    void pbkdf2HashWithoutIterations_MatchesCurrentSettingAndNeedsUpgrade() {
+        // hash z samego Pbkdf2PasswordEncoder (bez liczby iteracji) - zapisany przy bieżącej konfiguracji
+        String legacy = "{pbkdf2}" + new Pbkdf2PasswordEncoder("", 16, 1000,
+                Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256).encode("secret123");
+        PasswordEncoder encoder = PasswordHashing.delegatingEncoder(PasswordHashing.PBKDF2, 4, 1000);
+
+        assertTrue(encoder.matches("secret123", legacy));
+        assertTrue(encoder.upgradeEncoding(legacy));
+    }
+
+    @Test
+    void unknownAlgorithm_Throws() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> PasswordHashing.delegatingEncoder("md5", 10, 1000));
+        assertEquals("Nieznany algorytm haszowania haseł: md5", ex.getMessage());
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.shop.security;
+
+import com.example.shop.event.UserChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenDenyListTest {
+
+    private TokenDenyList denyList;
+
+    @BeforeEach
+    void setUp() {
+        denyList = new TokenDenyList();
+    }
+
+    private JwtClaims claims(String tokenId, String username, long issuedAtMs, long expiresAtMs) {
+        return new JwtClaims(tokenId, username, 1L, new Date(issuedAtMs), new Date(expiresAtMs), List.of("ROLE_USER"));
+    }
+
+    @Test
+    void revoke_DeniesOnlyThatToken() {
+        // given
+        long now = System.currentTimeMillis();
+        JwtClaims revoked = claims("jti-1", "testuser", now, now + 60_000);
+        JwtClaims other = claims("jti-2", "testuser", now, now + 60_000);
+
+        // when
+        denyList.revoke(revoked);
+
+        // then
+        assertTrue(denyList.isRevoked(revoked));
+        assertFalse(denyList.isRevoked(other));
+    }
+
+    @Test
+    void userChanged_DeniesTokensIssuedBefore() {
+        // given
+        long now = System.currentTimeMillis();
+        JwtClaims oldToken = claims("jti-1", "testuser", now - 5_000, now + 60_000);
+        JwtClaims otherUser = claims("jti-2", "otheruser", now - 5_000, now + 60_000);
+
+        // when - np. zmiana roli
+        denyList.onUserChanged(new UserChangedEvent("testuser"));
+
+        // then
+        assertTrue(denyList.isRevoked(oldToken));
+        assertFalse(denyList.isRevoked(otherUser));
+        assertFalse(denyList.isRevoked(claims("jti-3", "testuser", now + 5_000, now + 60_000)));
+    }
+
+    @Test
+    void userChanged_TokenFromReloginInTheSameSecond_StaysValid() {
+        // given - odwołanie w trakcie sekundy, iat ma dokładność do sekundy
+        long secondBefore = System.currentTimeMillis() / 1000 * 1000;
+        denyList.revokeAllFor("testuser");
+        long secondAfter = System.currentTimeMillis() / 1000 * 1000;
+
+        // then - token wystawiony po odwołaniu (ta sama sekunda) jest ważny, z wcześniejszej sekundy nie
+        assertFalse(denyList.isRevoked(claims("jti-1", "testuser", secondAfter, secondAfter + 60_000)));
+        assertTrue(denyList.isRevoked(claims("jti-2", "testuser", secondBefore - 1_000, secondAfter + 60_000)));
+    }
+
+    @Test
+    void purgeExpired_DropsEntriesThatNoLongerMatter() {
+        // given
+        long now = System.currentTimeMillis();
+        denyList.revoke(claims("jti-1", "testuser", now - 10_000, now - 1_000)); // już wygasł
+        denyList.revoke(claims("jti-2", "testuser", now, now + 60_000));
+
+        // when
+        denyList.purgeExpired();
+
+        // then
+        assertEquals(1, denyList.size());
+        assertTrue(denyList.isRevoked(claims("jti-2", "testuser", now, now + 60_000)));
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.shop.security;
+
+import com.example.shop.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UsernameBloomFilterTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private UsernameBloomFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new UsernameBloomFilter(userRepository);
+        ReflectionTestUtils.setField(filter, "expectedUsers", 100);
+    }
+
+    @Test
+    void notBuiltYet_EveryNameMightExist() {
+        assertTrue(filter.mightContain("ktokolwiek"));
+        assertEquals(false, filter.getStats().get("ready"));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void rebuild_KnownNamesMatchIgnoringCaseAndTrailingSpaces() {
+        // given
+        when(userRepository.findAllUsernames()).thenReturn(List.of("alice", "Bob"));
+
+        // when
+        filter.rebuild();
+
+        // then - filtr nie może odrzucić nazwy, którą baza (collation CI) uzna za istniejącą
+        assertTrue(filter.mightContain("alice"));
+        assertTrue(filter.mightContain("ALICE "));
+        assertTrue(filter.mightContain("bob"));
+        assertFalse(filter.mightContain("mallory"));
+    }
+
+    @Test
+    void falsePositiveRate_StaysNearConfiguredRate() {
+        // given - 10k kont, filtr liczony na 10k przy 1%
+        ReflectionTestUtils.setField(filter, "expectedUsers", 10_000);
+        List<String> usernames = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            usernames.add("user" + i);
+        }
+        when(userRepository.findAllUsernames()).thenReturn(usernames);
+        filter.rebuild();
+
+        // when
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("intruz" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // then
+        for (String username : usernames) {
+            assertTrue(filter.mightContain(username));
+        }
+        assertTrue(falsePositives < 1_500, "fałszywych trafień: " + falsePositives);
+        double expected = (double) filter.getStats().get("expectedFalsePositiveRate");
+        assertTrue(expected > 0.005 && expected < 0.015, "oczekiwany odsetek: " + expected);
+    }
+
+    @Test
+    void put_RegisteredNameIsVisible_AndOverfilledFilterIsRebuilt() {
+        // given - przy drugiej przebudowie nowe konta są już w bazie
+        List<String> registered = new ArrayList<>();
+        for (int i = 0; i <= 100; i++) {
+            registered.add("nowy" + i);
+        }
+        when(userRepository.findAllUsernames()).thenReturn(List.of(), registered);
+        filter.rebuild();
+
+        // when - więcej rejestracji, niż filtr był liczony
+        registered.forEach(filter::put);
+        filter.rebuildIfStale();
+
+        // then
+        assertTrue(filter.mightContain("nowy0"));
+        verify(userRepository, times(2)).findAllUsernames();
+    }
+
+    @Test
+    void registrationDuringRebuild_IsNotLost() {
+        // given - ktoś rejestruje się, gdy odczyt nazw z bazy już trwa
+        when(userRepository.findAllUsernames()).thenReturn(List.of("alice"));
+        filter.rebuild();
+        when(userRepository.findAllUsernames()).thenAnswer(inv -> {
+            filter.put("carol");
+            return List.of("alice");
+        });
+
+        // when
+        filter.rebuild();
+
+        // then
+        assertTrue(filter.mightContain("carol"));
+    }
+
+    @Test
+    void userCreatedElsewhere_IsFoundBeforeRejecting_AtMostOneSyncPerInterval() {
+        // given - filtr zbudowany z kont do id 1, potem inna instancja dodaje "dave" (id 2)
+        ReflectionTestUtils.setField(filter, "syncIntervalMs", 60_000L);
+        when(userRepository.findMaxId()).thenReturn(1L, 2L);
+        when(userRepository.findAllUsernames()).thenReturn(List.of("alice"));
+        filter.rebuild();
+        when(userRepository.findUsernamesByIdBetween(1L, 2L)).thenReturn(List.of("dave"));
+
+        // when
+        boolean dave = filter.mightContain("dave");
+        boolean mallory = filter.mightContain("mallory");
+        boolean eve = filter.mightContain("eve");
+
+        // then - "dave" doczytany z bazy, kolejne odmowy w tym samym interwale nie pytają bazy
+        assertTrue(dave);
+        assertFalse(mallory);
+        assertFalse(eve);
+        verify(userRepository, times(2)).findMaxId();
+        verify(userRepository, times(1)).findUsernamesByIdBetween(anyLong(), anyLong());
+        assertEquals(1L, filter.getStats().get("syncs"));
+    }
+
+    @Test
+    void stats_ReportObservedFalsePositiveRate() {
+        // given
+        when(userRepository.findAllUsernames()).thenReturn(List.of("alice"));
+        filter.rebuild();
+
+        // when - 3 nazwy odrzucone bez bazy, 1 przepuszczona, a w bazie jej nie było
+        filter.mightContain("x1");
+        filter.mightContain("x2");
+        filter.mightContain("x3");
+        filter.recordFalsePositive();
+
+        // then
+        Map<String, Object> stats = filter.getStats();
+        assertEquals(true, stats.get("ready"));
+        assertEquals(1L, stats.get("entries"));
+        assertEquals(3L, stats.get("definitelyAbsent"));
+        assertEquals(1L, stats.get("falsePositives"));
+        assertEquals(0.25, (double) stats.get("observedFalsePositiveRate"), 1e-9);
+    }
+}
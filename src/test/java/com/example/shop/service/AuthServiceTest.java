@@ -4,14 +4,23 @@ import com.example.shop.dto.LoginRequest;
 import com.example.shop.dto.RegisterRequest;
 import com.example.shop.entity.User;
 import com.example.shop.repository.UserRepository;
+import com.example.shop.security.AuthenticatedUser;
+import com.example.shop.security.PrincipalCache;
+import com.example.shop.security.TokenPrincipal;
+import com.example.shop.security.UsernameBloomFilter;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -26,6 +35,12 @@ class AuthServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private UsernameBloomFilter usernameFilter;
+
+    @Mock
+    private PrincipalCache principalCache;
+
     @InjectMocks
     private AuthService authService;
 
@@ -41,6 +56,9 @@ class AuthServiceTest {
         loginRequest = new LoginRequest();
         loginRequest.setUsername("testuser");
         loginRequest.setPassword("secret123");
+
+        // domyślnie filtr "może zna" każdą nazwę - decyduje baza
+        lenient().when(usernameFilter.mightContain(anyString())).thenReturn(true);
     }
 
     @Test
@@ -67,6 +85,24 @@ class AuthServiceTest {
         verify(userRepository).findByUsername("testuser");
         verify(userRepository).save(any(User.class));
         verify(passwordEncoder).encode("secret123");
+        verify(usernameFilter).recordFalsePositive();
+        verify(usernameFilter).put("testuser");
+    }
+
+    @Test
+    void register_NameUnknownToFilter_SkipsLookup() {
+        // given
+        when(usernameFilter.mightContain("testuser")).thenReturn(false);
+        when(passwordEncoder.encode("secret123")).thenReturn("encoded-pass");
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        authService.register(registerRequest);
+
+        // then
+        verify(userRepository, never()).findByUsername(anyString());
+        verify(usernameFilter).put("testuser");
+        verify(usernameFilter, never()).recordFalsePositive();
     }
 
     @Test
@@ -102,6 +138,25 @@ class AuthServiceTest {
         assertEquals("testuser", result.getUsername());
         verify(userRepository).findByUsername("testuser");
         verify(passwordEncoder).matches("secret123", "encoded123");
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    void login_OutdatedHash_IsRehashedWithCurrentSettings() {
+        // given - hash w starym formacie (np. bcrypt bez prefiksu albo z innym kosztem)
+        User existingUser = new User("testuser", "legacy-hash");
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(existingUser));
+        when(passwordEncoder.matches("secret123", "legacy-hash")).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("legacy-hash")).thenReturn(true);
+        when(passwordEncoder.encode("secret123")).thenReturn("{bcrypt}new-hash");
+        when(userRepository.save(existingUser)).thenReturn(existingUser);
+
+        // when
+        User result = authService.login(loginRequest);
+
+        // then
+        assertEquals("{bcrypt}new-hash", result.getPassword());
+        verify(userRepository).save(existingUser);
     }
 
     @Test
@@ -117,6 +172,20 @@ class AuthServiceTest {
 
         verify(userRepository).findByUsername("testuser");
         verify(passwordEncoder, never()).matches(anyString(), anyString());
+        verify(usernameFilter).recordFalsePositive();
+    }
+
+    @Test
+    void login_NameUnknownToFilter_IsRejectedWithoutQuery() {
+        // given
+        when(usernameFilter.mightContain("testuser")).thenReturn(false);
+
+        // when + then
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> authService.login(loginRequest));
+        assertEquals("Nieprawidłowy login lub hasło", ex.getMessage());
+
+        verifyNoInteractions(userRepository, passwordEncoder);
     }
 
     @Test
@@ -136,4 +205,57 @@ class AuthServiceTest {
         verify(userRepository).findByUsername("testuser");
         verify(passwordEncoder).matches("secret123", "encoded123");
     }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void getCurrentUser_ReusesUserFromPrincipal_WithoutQuery() {
+        // given - principal ustawiony przez JwtAuthenticationFilter
+        User user = new User("testuser", "encoded123", "ROLE_USER");
+        user.setId(5L);
+        AuthenticatedUser principal = new AuthenticatedUser(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        // when
+        User result = authService.getCurrentUser();
+
+        // then
+        assertSame(user, result);
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void getCurrentUser_StatelessPrincipal_ResolvesThroughPrincipalCache() {
+        // given - principal zbudowany z claimów tokenu (auth.stateless=true)
+        User user = new User("testuser", "encoded123", "ROLE_USER");
+        user.setId(5L);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new TokenPrincipal(5L, "testuser"), null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+        when(principalCache.getUser("testuser")).thenReturn(Optional.of(user));
+
+        // when
+        User result = authService.getCurrentUser();
+
+        // then - bez zapytania do bazy w każdym żądaniu
+        assertSame(user, result);
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void getCurrentUser_StatelessPrincipalOfRecreatedAccount_Throws() {
+        // given - konto o tej nazwie zostało usunięte i założone ponownie (inne id)
+        User recreated = new User("testuser", "encoded123", "ROLE_USER");
+        recreated.setId(6L);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new TokenPrincipal(5L, "testuser"), null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+        when(principalCache.getUser("testuser")).thenReturn(Optional.of(recreated));
+
+        // when + then
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> authService.getCurrentUser());
+        assertEquals("Użytkownik w kontekście nie istnieje", ex.getMessage());
+    }
 }
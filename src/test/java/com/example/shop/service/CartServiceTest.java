@@ -1,8 +1,13 @@
 package com.example.shop.service;
 
+import com.example.shop.dto.ProductQuantityRow;
 import com.example.shop.entity.CartItem;
 import com.example.shop.entity.Product;
 import com.example.shop.entity.User;
+import com.example.shop.event.ProductChangedEvent;
+import com.example.shop.event.ProductStockReleasedEvent;
+import com.example.shop.inventory.InventoryLedger;
+import com.example.shop.inventory.ReservationExpiryQueue;
 import com.example.shop.repository.CartItemRepository;
 import com.example.shop.repository.ProductRepository;
 import com.example.shop.repository.UserRepository;
@@ -12,13 +17,24 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,6 +48,21 @@ public class CartServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private InventoryLedger inventoryLedger;
+
+    @Mock
+    private ReservationExpiryQueue reservationExpiryQueue;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private CartService cartService;
 
@@ -52,11 +83,8 @@ public class CartServiceTest {
     void addToCart_ReturnsCartItem() {
         // given
         when(userRepository.findById(2L)).thenReturn(Optional.of(testUser));
+        when(productRepository.decrementStockIfAvailable(1L, 5)).thenReturn(1);
         when(productRepository.findById(1L)).thenReturn(Optional.of(sampleProduct));
-        when(productRepository.save(any(Product.class))).thenAnswer(inv -> {
-           Product p = inv.getArgument(0);
-           return p;
-        });
         when(cartItemRepository.save(any(CartItem.class))).thenAnswer(inv -> {
             CartItem ci = inv.getArgument(0);
             ci.setId(3L);
@@ -78,8 +106,43 @@ public class CartServiceTest {
 
         verify(userRepository).findById(2L);
         verify(productRepository).findById(1L);
-        verify(productRepository).save(sampleProduct);
+        verify(productRepository).decrementStockIfAvailable(1L, 5);
+        verify(productRepository, never()).save(any(Product.class));
         verify(cartItemRepository).save(cartItem);
+        verify(reservationExpiryQueue).schedule(3L, cartItem.getExpiresAt());
+        verify(eventPublisher).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    void addToCart_InsufficientStock_ThrowsWithoutReservation() {
+        // given - warunkowy UPDATE nie zmienił żadnego wiersza
+        when(userRepository.findById(2L)).thenReturn(Optional.of(testUser));
+        when(productRepository.decrementStockIfAvailable(1L, 50)).thenReturn(0);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(sampleProduct));
+
+        // when + then
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> cartService.addToCart(2L, 1L, 50));
+        assertEquals("Brak wystarczającego stanu magazynowego dla produktu: Sample Product", ex.getMessage());
+
+        verify(cartItemRepository, never()).save(any(CartItem.class));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void addToCart_TrackedProduct_ReservesInLedgerWithoutUpdate() {
+        // given - produkt "gorący", stan trzymany w InventoryLedger
+        when(userRepository.findById(2L)).thenReturn(Optional.of(testUser));
+        when(inventoryLedger.isTracked(1L)).thenReturn(true);
+        when(inventoryLedger.tryReserve(1L, 2)).thenReturn(true);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(sampleProduct));
+        when(cartItemRepository.save(any(CartItem.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // when
+        CartItem cartItem = cartService.addToCart(2L, 1L, 2);
+
+        // then
+        assertEquals(2, cartItem.getQuantity());
+        verify(productRepository, never()).decrementStockIfAvailable(anyLong(), anyInt());
     }
 
     @Test
@@ -110,4 +173,116 @@ public class CartServiceTest {
         verify(userRepository, times(1)).findById(2L);
         verify(cartItemRepository).findByUser(testUser);
     }
+
+    @Test
+    void cleanUpExpiredReservations_ReleasesStockInBulkChunks() {
+        // given - porcje po 2 rezerwacje: [10, 11] i [12]
+        ReflectionTestUtils.setField(cartService, "cleanupChunkSize", 2);
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null));
+        when(cartItemRepository.findExpiredIds(any(LocalDateTime.class), any(Limit.class)))
+                .thenReturn(List.of(10L, 11L))
+                .thenReturn(List.of(12L));
+        when(cartItemRepository.sumQuantitiesByProduct(List.of(10L, 11L)))
+                .thenReturn(List.of(new ProductQuantityRow(1L, 2L), new ProductQuantityRow(3L, 2L)));
+        when(cartItemRepository.sumQuantitiesByProduct(List.of(12L)))
+                .thenReturn(List.of(new ProductQuantityRow(5L, 4L)));
+        when(cartItemRepository.deleteAllByIdIn(anyCollection()))
+                .thenAnswer(inv -> ((List<?>) inv.getArgument(0)).size());
+        when(inventoryLedger.isTracked(anyLong())).thenAnswer(inv -> inv.getArgument(0).equals(5L));
+
+        // when
+        cartService.cleanUpExpiredReservations();
+
+        // then - produkty 1 i 3 dostają po 2 sztuki jednym UPDATE, produkt 5 wraca do ledgera
+        verify(jdbcTemplate).update(CartService.restockSql(2), 1L, 2, 3L, 2, 1L, 3L);
+        verify(jdbcTemplate, times(1)).update(anyString(), any(Object[].class));
+        verify(inventoryLedger).release(5L, 4);
+        verify(cartItemRepository).deleteAllByIdIn(List.of(10L, 11L));
+        verify(cartItemRepository).deleteAllByIdIn(List.of(12L));
+        verify(productRepository, never()).save(any(Product.class));
+        // jedno zdarzenie z id produktów, którym wrócił stan (także z ledgera)
+        verify(eventPublisher, times(1)).publishEvent(argThat((Object e) ->
+                e instanceof ProductStockReleasedEvent released && released.getProductIds().equals(Set.of(1L, 3L, 5L))));
+    }
+
+    @Test
+    void cleanUpExpiredReservations_NothingExpired_NoWrites() {
+        // given
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null));
+        when(cartItemRepository.findExpiredIds(any(LocalDateTime.class), any(Limit.class))).thenReturn(List.of());
+
+        // when
+        cartService.cleanUpExpiredReservations();
+
+        // then
+        verify(cartItemRepository, never()).deleteAllByIdIn(anyCollection());
+        verifyNoInteractions(productRepository, jdbcTemplate, eventPublisher);
+    }
+
+    @Test
+    void releaseDueReservations_ReleasesOnlyStillExpiredItemsFromQueue() {
+        // given - z kolejki wyszły 2 rezerwacje, ale id 21 zdążyło już trafić do zamówienia
+        when(reservationExpiryQueue.drainExpired()).thenReturn(List.of(20L, 21L));
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null));
+        when(cartItemRepository.findExpiredIdsIn(eq(List.of(20L, 21L)), any(LocalDateTime.class)))
+                .thenReturn(List.of(20L));
+        when(cartItemRepository.sumQuantitiesByProduct(List.of(20L)))
+                .thenReturn(List.of(new ProductQuantityRow(1L, 3L)));
+        when(cartItemRepository.deleteAllByIdIn(List.of(20L))).thenReturn(1);
+
+        // when
+        cartService.releaseDueReservations();
+
+        // then
+        verify(jdbcTemplate).update(CartService.restockSql(1), 1L, 3, 1L);
+        verify(cartItemRepository).deleteAllByIdIn(List.of(20L));
+        verify(cartItemRepository, never()).findExpiredIds(any(LocalDateTime.class), any(Limit.class));
+        verify(eventPublisher).publishEvent(argThat((Object e) ->
+                e instanceof ProductStockReleasedEvent released && released.getProductIds().equals(Set.of(1L))));
+    }
+
+    @Test
+    void releaseDueReservations_RowDeletedConcurrently_RollsBackAndRestocksOnce() {
+        // given - między odczytem a DELETE rezerwację 21 zamieniono w zamówienie (finalizeOrder)
+        when(reservationExpiryQueue.drainExpired()).thenReturn(List.of(20L, 21L));
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null));
+        when(cartItemRepository.findExpiredIdsIn(eq(List.of(20L, 21L)), any(LocalDateTime.class)))
+                .thenReturn(List.of(20L, 21L))
+                .thenReturn(List.of(20L));
+        when(cartItemRepository.sumQuantitiesByProduct(List.of(20L, 21L)))
+                .thenReturn(List.of(new ProductQuantityRow(1L, 5L)));
+        when(cartItemRepository.sumQuantitiesByProduct(List.of(20L)))
+                .thenReturn(List.of(new ProductQuantityRow(1L, 3L)));
+        when(cartItemRepository.deleteAllByIdIn(List.of(20L, 21L))).thenReturn(1);
+        when(cartItemRepository.deleteAllByIdIn(List.of(20L))).thenReturn(1);
+
+        // when
+        cartService.releaseDueReservations();
+
+        // then - stan oddany raz, tylko za rezerwację usuniętą przez sprzątanie
+        verify(jdbcTemplate, times(1)).update(anyString(), any(Object[].class));
+        verify(jdbcTemplate).update(CartService.restockSql(1), 1L, 3, 1L);
+    }
+
+    @Test
+    void restockSql_OneUpdateWithCaseForAllProducts() {
+        assertEquals("UPDATE products SET stock_quantity = stock_quantity + CASE id WHEN ? THEN ? WHEN ? THEN ?"
+                + " END, version = version + 1 WHERE id IN (?, ?)", CartService.restockSql(2));
+    }
+
+    @Test
+    void releaseDueReservations_NothingDue_NoQueries() {
+        // given
+        when(reservationExpiryQueue.drainExpired()).thenReturn(List.of());
+
+        // when
+        cartService.releaseDueReservations();
+
+        // then
+        verifyNoInteractions(cartItemRepository, productRepository, transactionTemplate, eventPublisher);
+    }
 }
@@ -0,0 +1,103 @@
+package com.example.shop.service;
+
+import com.example.shop.dto.OrderHistoryRow;
+import com.example.shop.repository.OrderRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderExportServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    private OrderExportService orderExportService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @BeforeEach
+    void setUp() {
+        orderExportService = new OrderExportService(orderRepository, objectMapper);
+    }
+
+    @Test
+    void exportNdjson_WritesOneOrderPerLine_AndClosesCursor() throws Exception {
+        // given - zamówienie 1 z dwiema pozycjami, zamówienie 2 bez pozycji
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 21, 12, 0);
+        AtomicBoolean cursorClosed = new AtomicBoolean();
+        Stream<OrderHistoryRow> rows = Stream.of(
+                new OrderHistoryRow(1L, createdAt, 10L, "anna", 100L, "Klawiatura", 120.0, 2),
+                new OrderHistoryRow(1L, createdAt, 10L, "anna", 200L, "Mysz", 60.0, 1),
+                new OrderHistoryRow(2L, createdAt, 11L, "jan", null, null, null, null)
+        ).onClose(() -> cursorClosed.set(true));
+        when(orderRepository.streamHistoryRows(null, null)).thenReturn(rows);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // when
+        long exported = orderExportService.exportNdjson(out, null, null);
+
+        // then
+        assertEquals(2, exported);
+        assertTrue(cursorClosed.get());
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(1, first.get("id").asLong());
+        assertEquals(2, first.get("items").size());
+        assertEquals("Mysz", first.get("items").get(1).get("productName").asText());
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertEquals("jan", second.get("username").asText());
+        assertEquals(0, second.get("items").size());
+    }
+
+    @Test
+    void exportNdjson_LargeCursor_IsWrittenWithoutCollecting() throws Exception {
+        // given - 200 tys. zamówień generowanych leniwie; wynik tylko liczymy, nie trzymamy
+        long orders = 200_000;
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 21, 12, 0);
+        when(orderRepository.streamHistoryRows(null, null)).thenReturn(LongStream.rangeClosed(1, orders)
+                .mapToObj(id -> new OrderHistoryRow(id, createdAt, 10L, "anna", 100L, "Klawiatura", 120.0, 1)));
+        CountingOutputStream out = new CountingOutputStream();
+
+        // when
+        long exported = orderExportService.exportNdjson(out, null, null);
+
+        // then
+        assertEquals(orders, exported);
+        assertEquals(orders, out.newLines);
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long newLines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                newLines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.shop.service;
+
+import com.example.shop.dto.BulkOrderLineResult;
+import com.example.shop.dto.BulkOrderResultDto;
+import com.example.shop.dto.OrderRequest;
+import com.example.shop.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderImportServiceTest {
+
+    @Mock
+    private OrderService orderService;
+
+    private OrderImportService orderImportService;
+
+    private final User user = new User("b2bPartner", "secret", "ROLE_USER");
+
+    @BeforeEach
+    void setUp() {
+        // prawdziwy ObjectMapper i walidator - testujemy czytanie strumienia, nie mocki
+        orderImportService = new OrderImportService(orderService,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper());
+        ReflectionTestUtils.setField(orderImportService, "chunkSize", 2);
+
+        lenient().when(orderService.createOrders(eq(user), anyList())).thenAnswer(inv -> {
+            List<OrderRequest> chunk = inv.getArgument(1);
+            List<BulkOrderLineResult> results = new ArrayList<>();
+            for (OrderRequest request : chunk) {
+                results.add(BulkOrderLineResult.created(request.getItems().get(0).getProductId()));
+            }
+            return results;
+        });
+    }
+
+    @Test
+    void importOrders_Ndjson_ProcessesChunksAndKeepsIndexes() {
+        // given - 4 poprawne zamówienia i jedno bez pozycji w środku
+        InputStream body = stream("""
+                {"items":[{"productId":1,"quantity":1}]}
+                {"items":[{"productId":2,"quantity":1}]}
+                {"items":[]}
+                {"items":[{"productId":3,"quantity":1}]}
+                {"items":[{"productId":4,"quantity":1}]}
+                """);
+
+        // when
+        BulkOrderResultDto result = orderImportService.importOrders(user, body);
+
+        // then
+        assertEquals(4, result.getCreated());
+        assertEquals(1, result.getRejected());
+        assertNull(result.getError());
+        assertEquals(List.of(0, 1, 2, 3, 4), result.getResults().stream().map(BulkOrderLineResult::getIndex).toList());
+        assertEquals("REJECTED", result.getResults().get(2).getStatus());
+        assertEquals("items: Lista produktów nie może być pusta", result.getResults().get(2).getError());
+        assertEquals(4L, result.getResults().get(4).getOrderId());
+        // porcje po 2 zamówienia - każda to osobne wywołanie (osobna transakcja)
+        verify(orderService, times(2)).createOrders(eq(user), anyList());
+    }
+
+    @Test
+    void importOrders_JsonArray_IsReadLikeNdjson() {
+        // given
+        InputStream body = stream("""
+                [{"items":[{"productId":1,"quantity":1}]},{"items":[{"productId":2,"quantity":1}]},
+                 {"items":[{"productId":3,"quantity":1}]}]
+                """);
+
+        // when
+        BulkOrderResultDto result = orderImportService.importOrders(user, body);
+
+        // then
+        assertEquals(3, result.getCreated());
+        assertNull(result.getError());
+        verify(orderService, times(2)).createOrders(eq(user), anyList());
+    }
+
+    @Test
+    void importOrders_MalformedLine_StopsReadingButKeepsEarlierOrders() {
+        // given
+        InputStream body = stream("""
+                {"items":[{"productId":1,"quantity":1}]}
+                {"items":[{"productId":
+                """);
+
+        // when
+        BulkOrderResultDto result = orderImportService.importOrders(user, body);
+
+        // then
+        assertEquals(1, result.getCreated());
+        assertNotNull(result.getError());
+        assertTrue(result.getError().startsWith("Nieprawidłowy format danych (zamówienie nr 1)"));
+    }
+
+    @Test
+    void importOrders_ChunkRolledBack_MarksWholeChunkFailed() {
+        // given
+        when(orderService.createOrders(eq(user), anyList())).thenThrow(new RuntimeException("Błąd bazy"));
+        InputStream body = stream("""
+                {"items":[{"productId":1,"quantity":1}]}
+                {"items":[{"productId":2,"quantity":1}]}
+                {"items":[{"productId":3,"quantity":1}]}
+                """);
+
+        // when
+        BulkOrderResultDto result = orderImportService.importOrders(user, body);
+
+        // then
+        assertEquals(0, result.getCreated());
+        assertEquals(3, result.getRejected());
+        assertTrue(result.getResults().stream().allMatch(r -> "FAILED".equals(r.getStatus())));
+        verify(orderService, times(2)).createOrders(eq(user), anyList());
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,8 +1,12 @@
 package com.example.shop.service;
 
+import com.example.shop.dto.BulkOrderLineResult;
+import com.example.shop.dto.OrderDto;
+import com.example.shop.dto.OrderHistoryRow;
 import com.example.shop.dto.OrderItemRequest;
 import com.example.shop.dto.OrderRequest;
 import com.example.shop.entity.*;
+import com.example.shop.inventory.InventoryLedger;
 import com.example.shop.repository.OrderRepository;
 import com.example.shop.repository.ProductRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,7 +15,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import static org.mockito.Mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
+import java.time.LocalDateTime;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -25,6 +34,12 @@ class OrderServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private InventoryLedger inventoryLedger;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private OrderService orderService;
 
@@ -52,8 +67,7 @@ class OrderServiceTest {
         product2.setPrice(100.0);
         product2.setStockQuantity(10);
 
-        when(productRepository.findById(100L)).thenReturn(Optional.of(product1));
-        when(productRepository.findById(200L)).thenReturn(Optional.of(product2));
+        when(productRepository.findAllByIdInForUpdate(List.of(100L, 200L))).thenReturn(List.of(product1, product2));
 
         // Zwracamy zamówienie z ID 999 po zapisie
         when(orderRepository.save(any(Order.class))).thenAnswer(inv -> {
@@ -107,15 +121,19 @@ class OrderServiceTest {
             assertEquals(3, secondItem.getQuantity());
         }
 
-        verify(productRepository).findById(100L);
-        verify(productRepository).findById(200L);
+        // stan zdjęty na zablokowanych encjach - jedno zapytanie, bez findById per pozycja
+        assertEquals(18, product1.getStockQuantity());
+        assertEquals(7, product2.getStockQuantity());
+        verify(productRepository).findAllByIdInForUpdate(List.of(100L, 200L));
+        verify(productRepository, never()).findById(anyLong());
+        verify(productRepository, never()).save(any(Product.class));
         verify(orderRepository).save(any(Order.class));
     }
 
     @Test
     void createOrder_ProductNotFound_ThrowsException() {
         // given
-        when(productRepository.findById(999L)).thenReturn(Optional.empty());
+        when(productRepository.findAllByIdInForUpdate(List.of(999L))).thenReturn(List.of());
 
         OrderItemRequest itemReq = new OrderItemRequest();
         itemReq.setProductId(999L);
@@ -129,41 +147,173 @@ class OrderServiceTest {
                 () -> orderService.createOrder(testUser, orderRequest));
         assertEquals("Produkt nie istnieje", ex.getMessage());
 
-        verify(productRepository).findById(999L);
+        verify(productRepository).findAllByIdInForUpdate(List.of(999L));
         verify(orderRepository, never()).save(any(Order.class));
     }
 
     @Test
-    void getAllOrdersForUser_ReturnsOnlyUserOrders() {
+    void createOrder_DuplicateProductLines_AreMergedIntoOneItem() {
         // given
-        User anotherUser = new User();
-        anotherUser.setId(20L);
+        Product product = new Product("Kabel", 10.0, 10);
+        product.setId(100L);
+        when(productRepository.findAllByIdInForUpdate(List.of(100L))).thenReturn(List.of(product));
+        when(orderRepository.save(any(Order.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        OrderItemRequest first = new OrderItemRequest();
+        first.setProductId(100L);
+        first.setQuantity(2);
+        OrderItemRequest second = new OrderItemRequest();
+        second.setProductId(100L);
+        second.setQuantity(3);
+        OrderRequest orderRequest = new OrderRequest();
+        orderRequest.setItems(List.of(first, second));
 
-        Order order1 = new Order();
-        order1.setId(1000L);
-        order1.setUser(testUser);
+        // when
+        Order order = orderService.createOrder(testUser, orderRequest);
 
-        Order order2 = new Order();
-        order2.setId(2000L);
-        order2.setUser(anotherUser);
+        // then
+        assertEquals(1, order.getItems().size());
+        assertEquals(5, order.getItems().iterator().next().getQuantity());
+        assertEquals(5, product.getStockQuantity());
+    }
 
-        Order order3 = new Order();
-        order3.setId(3000L);
-        order3.setUser(testUser);
+    @Test
+    void createOrder_InsufficientStockOnAnyLine_ChangesNothing() {
+        // given - pierwsza pozycja ma stan, druga nie
+        Product product1 = new Product("Klawiatura", 120.0, 10);
+        product1.setId(100L);
+        Product product2 = new Product("Mysz", 60.0, 1);
+        product2.setId(200L);
+        when(productRepository.findAllByIdInForUpdate(List.of(200L, 100L))).thenReturn(List.of(product1, product2));
+
+        OrderItemRequest mouse = new OrderItemRequest();
+        mouse.setProductId(200L);
+        mouse.setQuantity(5);
+        OrderItemRequest keyboard = new OrderItemRequest();
+        keyboard.setProductId(100L);
+        keyboard.setQuantity(1);
+        OrderRequest orderRequest = new OrderRequest();
+        orderRequest.setItems(List.of(mouse, keyboard));
 
-        // findAll() zwraca wszystkie zamówienia, potem w serwisie filtrujemy
-        when(orderRepository.findAll()).thenReturn(List.of(order1, order2, order3));
+        // when + then
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> orderService.createOrder(testUser, orderRequest));
+        assertEquals("Brak wystarczającego stanu magazynowego dla produktu: Mysz", ex.getMessage());
+        assertEquals(10, product1.getStockQuantity());
+        assertEquals(1, product2.getStockQuantity());
+        verifyNoInteractions(eventPublisher);
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void createOrders_LocksProductsOnceAndRejectsOnlyFailingOrders() {
+        // given - dwa zamówienia na ten sam produkt, drugie przekracza pozostały stan
+        Product product1 = new Product("Klawiatura", 120.0, 5);
+        product1.setId(100L);
+        Product product2 = new Product("Mysz", 60.0, 10);
+        product2.setId(200L);
+        when(productRepository.findAllByIdInForUpdate(anyCollection())).thenReturn(List.of(product1, product2));
+        when(orderRepository.saveAll(anyList())).thenAnswer(inv -> {
+            List<Order> orders = inv.getArgument(0);
+            long id = 1;
+            for (Order o : orders) {
+                o.setId(id++);
+            }
+            return orders;
+        });
+
+        List<OrderRequest> requests = List.of(
+                orderRequest(100L, 4, 200L, 1),
+                orderRequest(100L, 2, 200L, 1),
+                orderRequest(200L, 3, 999L, 1),
+                orderRequest(200L, 2, 100L, 1));
 
         // when
-        List<Order> result = orderService.getAllOrdersForUser(testUser);
+        List<BulkOrderLineResult> results = orderService.createOrders(testUser, requests);
+
+        // then
+        assertEquals(List.of("CREATED", "REJECTED", "REJECTED", "CREATED"),
+                results.stream().map(BulkOrderLineResult::getStatus).toList());
+        assertEquals(1L, results.get(0).getOrderId());
+        assertEquals("Brak wystarczającego stanu magazynowego dla produktu: Klawiatura", results.get(1).getError());
+        assertEquals("Produkt nie istnieje", results.get(2).getError());
+        assertEquals(2L, results.get(3).getOrderId());
+        assertEquals(0, product1.getStockQuantity());
+        assertEquals(7, product2.getStockQuantity());
+        verify(productRepository, times(1)).findAllByIdInForUpdate(anyCollection());
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    private static OrderRequest orderRequest(Long productId1, int quantity1, Long productId2, int quantity2) {
+        OrderItemRequest first = new OrderItemRequest();
+        first.setProductId(productId1);
+        first.setQuantity(quantity1);
+        OrderItemRequest second = new OrderItemRequest();
+        second.setProductId(productId2);
+        second.setQuantity(quantity2);
+        OrderRequest request = new OrderRequest();
+        request.setItems(List.of(first, second));
+        return request;
+    }
+
+    @Test
+    void getOrdersForUser_PassesDateRangeAndCappedPage() {
+        // given
+        LocalDateTime from = LocalDateTime.of(2025, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2025, 2, 1, 0, 0);
+
+        when(orderRepository.findIdSliceForUser(10L, from, to, PageRequest.of(2, 100)))
+                .thenReturn(new SliceImpl<>(List.of(1000L), PageRequest.of(2, 100), false));
+        when(orderRepository.findHistoryRowsByOrderIds(List.of(1000L)))
+                .thenReturn(List.of(new OrderHistoryRow(1000L, from, 10L, "testUser", 100L, "Laptop", 50.0, 2)));
+
+        // when
+        Slice<OrderDto> result = orderService.getOrdersForUser(testUser, from, to, 2, 5000);
+
+        // then
+        assertEquals(1, result.getContent().size());
+        assertEquals(1000L, result.getContent().getFirst().getId());
+        assertFalse(result.hasNext());
+        verify(orderRepository).findIdSliceForUser(10L, from, to, PageRequest.of(2, 100));
+    }
+
+    @Test
+    void getOrderHistoryForUser_GroupsProjectionRowsIntoDtos() {
+        // given - dwa zamówienia: pierwsze z dwiema pozycjami, drugie bez pozycji
+        LocalDateTime created = LocalDateTime.of(2025, 1, 21, 12, 0);
+        when(orderRepository.findHistoryRowsByUserId(10L)).thenReturn(List.of(
+                new OrderHistoryRow(2L, created, 10L, "testUser", 100L, "Laptop", 50.0, 2),
+                new OrderHistoryRow(2L, created, 10L, "testUser", 200L, "Mysz", null, 1),
+                new OrderHistoryRow(1L, created.minusDays(1), 10L, "testUser", null, null, null, null)));
+
+        // when
+        List<OrderDto> result = orderService.getOrderHistoryForUser(testUser);
 
         // then
-        assertNotNull(result);
         assertEquals(2, result.size());
-        assertTrue(result.contains(order1));
-        assertTrue(result.contains(order3));
-        assertFalse(result.contains(order2));
+        OrderDto newest = result.getFirst();
+        assertEquals(2L, newest.getId());
+        assertEquals("testUser", newest.getUsername());
+        assertEquals(2, newest.getItems().size());
+        assertEquals("Laptop", newest.getItems().getFirst().getProductName());
+        assertEquals(0.0, newest.getItems().get(1).getPriceAtOrderTime());
+        assertTrue(result.get(1).getItems().isEmpty());
+
+        verify(orderRepository).findHistoryRowsByUserId(10L);
+        verifyNoMoreInteractions(orderRepository);
+    }
 
-        verify(orderRepository).findAll();
+    @Test
+    void getOrdersForUser_EmptyPage_SkipsFetch() {
+        // given
+        when(orderRepository.findIdSliceForUser(10L, null, null, PageRequest.of(0, 20)))
+                .thenReturn(new SliceImpl<>(List.of(), PageRequest.of(0, 20), false));
+
+        // when
+        Slice<OrderDto> result = orderService.getOrdersForUser(testUser, null, null, null, null);
+
+        // then
+        assertTrue(result.getContent().isEmpty());
+        verify(orderRepository, never()).findHistoryRowsByOrderIds(any());
     }
 }
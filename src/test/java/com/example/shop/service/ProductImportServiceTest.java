@@ -0,0 +1,213 @@
+package com.example.shop.service;
+
+import com.example.shop.dto.ProductImportResultDto;
+import com.example.shop.dto.ProductImportRow;
+import com.example.shop.event.ProductImportEvent;
+import com.example.shop.inventory.InventoryLedger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductImportServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private InventoryLedger inventoryLedger;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ProductImportService productImportService;
+
+    @BeforeEach
+    void setUp() {
+        productImportService = new ProductImportService(jdbcTemplate, transactionTemplate, inventoryLedger,
+                new ObjectMapper(), eventPublisher);
+        ReflectionTestUtils.setField(productImportService, "batchSize", 2);
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null));
+    }
+
+    @Test
+    void importCsv_WritesInBatches_AndReportsBadRows() throws Exception {
+        // given - 3 poprawne wiersze (paczki 2 + 1), zła cena i brak nazwy
+        when(jdbcTemplate.batchUpdate(eq(ProductImportService.INSERT_SQL), anyList(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(inv -> new int[][]{new int[((Collection<?>) inv.getArgument(1)).size()]});
+        InputStream body = stream("""
+                name,price,stockQuantity
+                Kabel HDMI,19.99,100
+                "Etui, czarne",29.5,5
+                Ładowarka,abc,1
+                ,10,1
+                Słuchawki,199,
+                """);
+
+        // when
+        ProductImportResultDto result = productImportService.importCsv(body);
+
+        // then
+        assertEquals(3, result.getInserted());
+        assertEquals(0, result.getUpdated());
+        assertEquals(2, result.getFailed());
+        assertEquals(4, result.getErrors().get(0).getLine());
+        assertTrue(result.getErrors().get(0).getError().startsWith("Nieprawidłowa liczba"));
+        assertEquals("Brak nazwy produktu", result.getErrors().get(1).getError());
+        verify(jdbcTemplate, times(2)).batchUpdate(eq(ProductImportService.INSERT_SQL), anyList(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        // po paczce - czyszczenie cache, po całym imporcie - jedna przebudowa indeksów
+        verify(eventPublisher, times(2)).publishEvent(argThat((Object e) ->
+                e instanceof ProductImportEvent imported && !imported.isFinished()));
+        verify(eventPublisher, times(1)).publishEvent(argThat((Object e) ->
+                e instanceof ProductImportEvent imported && imported.isFinished()));
+    }
+
+    @Test
+    void importNdjson_UpdateOfMissingId_IsReportedAndTrackedStockIsSynced() throws Exception {
+        // given - aktualizacja istniejącego (śledzonego w ledgerze) i nieistniejącego produktu
+        when(jdbcTemplate.batchUpdate(eq(ProductImportService.UPDATE_SQL), anyList(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class))).thenReturn(new int[][]{{1, 0}});
+        when(inventoryLedger.isTracked(7L)).thenReturn(true);
+        InputStream body = stream("""
+                {"id":7,"name":"Konsola","price":1999.0,"stockQuantity":40}
+                {"id":999,"name":"Widmo","price":1.0}
+                {"name":
+                """);
+
+        // when
+        ProductImportResultDto result = productImportService.importNdjson(body);
+
+        // then
+        assertEquals(1, result.getUpdated());
+        assertEquals(2, result.getFailed());
+        assertEquals("Produkt o id 999 nie istnieje", result.getErrors().get(0).getError());
+        assertEquals(2, result.getErrors().get(0).getLine());
+        assertTrue(result.getErrors().get(1).getError().startsWith("Nieprawidłowy JSON"));
+        verify(inventoryLedger).track(7L, 40);
+    }
+
+    @Test
+    void importCsv_RejectedBatch_IsRetriedRowByRow() throws Exception {
+        // given - baza odrzuca paczkę z powodu jednego wiersza
+        when(jdbcTemplate.batchUpdate(eq(ProductImportService.INSERT_SQL), anyList(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class))).thenAnswer(inv -> {
+                    List<?> rows = inv.getArgument(1);
+                    if (rows.size() > 1) {
+                        throw new DataIntegrityViolationException("za długa nazwa");
+                    }
+                    ProductImportRow row = (ProductImportRow) ReflectionTestUtils.getField(rows.get(0), "product");
+                    if (row.getName().startsWith("X")) {
+                        throw new DataIntegrityViolationException("za długa nazwa");
+                    }
+                    return new int[][]{{1}};
+                });
+        InputStream body = stream("""
+                name,price
+                Kabel,1
+                XXXXXXXX,2
+                """);
+
+        // when
+        ProductImportResultDto result = productImportService.importCsv(body);
+
+        // then
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getFailed());
+        assertEquals(3, result.getErrors().get(0).getLine());
+    }
+
+    @Test
+    void importCsv_QuotedFieldWithNewline_IsOneRecord_AndLaterLinesKeepTheirNumbers() throws Exception {
+        // given - nazwa w cudzysłowach z przecinkiem, "" i znakiem nowej linii zajmuje linie 2-3
+        List<String> names = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(eq(ProductImportService.INSERT_SQL), anyList(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class))).thenAnswer(inv -> {
+                    for (Object parsed : (List<?>) inv.getArgument(1)) {
+                        names.add(((ProductImportRow) ReflectionTestUtils.getField(parsed, "product")).getName());
+                    }
+                    return new int[][]{new int[((Collection<?>) inv.getArgument(1)).size()]};
+                });
+        InputStream body = stream("""
+                name,price
+                "Etui, ""premium""
+                czarne",9.5
+                Kabel,abc
+                Ładowarka,19
+                """);
+
+        // when
+        ProductImportResultDto result = productImportService.importCsv(body);
+
+        // then
+        assertEquals(List.of("Etui, \"premium\"\nczarne", "Ładowarka"), names);
+        assertEquals(2, result.getInserted());
+        assertEquals(1, result.getFailed());
+        assertEquals(4, result.getErrors().get(0).getLine());
+    }
+
+    @Test
+    void importCsv_UnclosedQuote_StopsImportAndKeepsWrittenBatches() throws Exception {
+        // given - niedomknięty cudzysłów w linii 4 "zjada" resztę pliku
+        when(jdbcTemplate.batchUpdate(eq(ProductImportService.INSERT_SQL), anyList(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(inv -> new int[][]{new int[((Collection<?>) inv.getArgument(1)).size()]});
+        InputStream body = stream("""
+                name,price
+                Kabel,1
+                Etui,2
+                "Ładowarka,3
+                Słuchawki,4
+                """);
+
+        // when
+        ProductImportResultDto result = productImportService.importCsv(body);
+
+        // then
+        assertEquals(2, result.getInserted());
+        assertEquals(1, result.getFailed());
+        assertTrue(result.getErrors().get(0).getError().startsWith("Nieprawidłowy CSV"));
+    }
+
+    @Test
+    void parseCsvHeader_WithoutPrice_Throws() {
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> ProductImportService.parseCsvHeader(List.of("id", "name", "stock_quantity")));
+        assertEquals("Nagłówek CSV musi zawierać kolumny name i price", ex.getMessage());
+
+        Map<String, Integer> columns = ProductImportService.parseCsvHeader(List.of("price", "stock_quantity", "name"));
+        ProductImportRow row = ProductImportService.parseCsvRow(List.of("9.5", "3", "Kabel"), columns);
+        assertEquals("Kabel", row.getName());
+        assertEquals(3, row.getStockQuantity());
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.shop.service;
+
+import com.example.shop.entity.Product;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductPayloadCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ProductPayloadCache productPayloadCache;
+
+    @BeforeEach
+    void setUp() {
+        productPayloadCache = new ProductPayloadCache(objectMapper, 100);
+        ReflectionTestUtils.setField(productPayloadCache, "gzipMinBytes", 200);
+    }
+
+    @Test
+    void forList_SameCatalog_IsSerializedOnce() {
+        // given
+        List<Product> products = products(20);
+
+        // when - ta sama instancja i nowa lista z tymi samymi wersjami
+        ProductPayloadCache.Payload first = productPayloadCache.forList(products);
+        ProductPayloadCache.Payload second = productPayloadCache.forList(products);
+        ProductPayloadCache.Payload copy = productPayloadCache.forList(new ArrayList<>(products));
+
+        // then
+        assertSame(first, second);
+        assertSame(first.getJson(), copy.getJson());
+        assertEquals(1, productPayloadCache.getSerializations());
+    }
+
+    @Test
+    void forList_ChangedVersion_IsSerializedAgain() {
+        // given
+        List<Product> products = products(3);
+        ProductPayloadCache.Payload before = productPayloadCache.forList(products);
+
+        // when
+        products.get(1).setVersion(1L);
+        products.get(1).setStockQuantity(0);
+        ProductPayloadCache.Payload after = productPayloadCache.forList(new ArrayList<>(products));
+
+        // then
+        assertNotEquals(before.getVersion(), after.getVersion());
+        assertEquals(2, productPayloadCache.getSerializations());
+        assertTrue(new String(after.getJson()).contains("\"stockQuantity\":0"));
+    }
+
+    @Test
+    void forProduct_GzipOnlyAboveThreshold_AndMatchesJson() throws Exception {
+        // given
+        Product small = products(1).get(0);
+        Product large = products(1).get(0);
+        large.setId(2L);
+        large.setName("Bardzo długa nazwa produktu ".repeat(20));
+
+        // when
+        ProductPayloadCache.Payload smallPayload = productPayloadCache.forProduct(small);
+        ProductPayloadCache.Payload largePayload = productPayloadCache.forProduct(large);
+
+        // then
+        assertNull(smallPayload.getGzip());
+        assertNotNull(largePayload.getGzip());
+        assertTrue(largePayload.getGzip().length < largePayload.getJson().length);
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(largePayload.getGzip()))) {
+            assertArrayEquals(largePayload.getJson(), in.readAllBytes());
+        }
+        assertNull(smallPayload.getDeflate());
+        try (var in = new InflaterInputStream(new ByteArrayInputStream(largePayload.getDeflate()))) {
+            assertArrayEquals(largePayload.getJson(), in.readAllBytes());
+        }
+        JsonNode json = objectMapper.readTree(smallPayload.getJson());
+        assertEquals("Produkt 1", json.get("name").asText());
+        assertSame(smallPayload, productPayloadCache.forProduct(small));
+        assertEquals("1-0", smallPayload.getVersion());
+    }
+
+    private static List<Product> products(int count) {
+        List<Product> products = new ArrayList<>();
+        for (long i = 1; i <= count; i++) {
+            Product p = new Product("Produkt " + i, 10.0 * i, 5);
+            p.setId(i);
+            p.setVersion(0L);
+            products.add(p);
+        }
+        return products;
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.shop.service;
 
+import com.example.shop.dto.ProductPageDto;
 import com.example.shop.entity.Product;
+import com.example.shop.event.ProductChangedEvent;
+import com.example.shop.inventory.InventoryLedger;
 import com.example.shop.repository.ProductRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -8,6 +11,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 
 import java.util.*;
 
@@ -20,6 +25,12 @@ class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private InventoryLedger inventoryLedger;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ProductService productService;
 
@@ -104,6 +115,8 @@ class ProductServiceTest {
         assertEquals(250.0, result.getPrice());
 
         verify(productRepository).save(newProduct);
+        verify(eventPublisher).publishEvent(argThat((Object e) ->
+                e instanceof ProductChangedEvent pce && pce.getProductId().equals(2L)));
     }
 
     @Test
@@ -117,6 +130,7 @@ class ProductServiceTest {
         // then
         // brak wyjątków = sukces
         verify(productRepository).deleteById(1L);
+        verify(eventPublisher).publishEvent(any(ProductChangedEvent.class));
     }
 
     @Test
@@ -139,5 +153,82 @@ class ProductServiceTest {
 
         verify(productRepository).findById(1L);
         verify(productRepository).save(result);
+        verify(eventPublisher).publishEvent(argThat((Object e) ->
+                e instanceof ProductChangedEvent pce && pce.getProductId().equals(1L)));
+    }
+
+    @Test
+    void getProductsPage_FirstPage_ReturnsNextCursor() {
+        // given - repozytorium zwraca size + 1 rekordów, więc istnieje kolejna strona
+        Product second = new Product("Second", 20.0);
+        second.setId(2L);
+        Product third = new Product("Third", 30.0);
+        third.setId(3L);
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(3)))
+                .thenReturn(List.of(sampleProduct, second, third));
+
+        // when
+        ProductPageDto page = productService.getProductsPage(null, 2);
+
+        // then
+        assertEquals(2, page.getItems().size());
+        assertEquals(2L, page.getItems().get(1).getId());
+        assertNotNull(page.getNextCursor());
+        assertEquals(2L, ProductService.decodeCursor(page.getNextCursor()));
+    }
+
+    @Test
+    void getProductsPage_LastPage_HasNoCursor() {
+        // given
+        String cursor = ProductService.encodeCursor(1L);
+        Product second = new Product("Second", 20.0);
+        second.setId(2L);
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(1L, Limit.of(11)))
+                .thenReturn(List.of(second));
+
+        // when
+        ProductPageDto page = productService.getProductsPage(cursor, 10);
+
+        // then
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getProductsPage_SizeAboveMax_IsCapped() {
+        // given
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(101)))
+                .thenReturn(List.of(sampleProduct));
+
+        // when
+        productService.getProductsPage(null, 10_000);
+
+        // then
+        verify(productRepository).findByIdGreaterThanOrderByIdAsc(0L, Limit.of(101));
+    }
+
+    @Test
+    void getProductsPage_InvalidCursor_ThrowsException() {
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> productService.getProductsPage("nie-kursor", 10));
+        assertEquals("Nieprawidłowy kursor stronicowania", ex.getMessage());
+
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void catalogVersion_ChangesWithVersionAddAndDelete() {
+        // given
+        Product other = new Product("Inny", 5.0, 1);
+        other.setId(2L);
+        other.setVersion(0L);
+        sampleProduct.setVersion(0L);
+        long base = ProductService.catalogVersion(List.of(sampleProduct, other));
+
+        // when + then
+        assertEquals(base, ProductService.catalogVersion(List.of(sampleProduct, other)));
+        assertNotEquals(base, ProductService.catalogVersion(List.of(sampleProduct)));
+        sampleProduct.setVersion(1L);
+        assertNotEquals(base, ProductService.catalogVersion(List.of(sampleProduct, other)));
     }
 }
@@ -3,6 +3,7 @@ package com.example.shop.service;
 import com.example.shop.entity.RefreshToken;
 import com.example.shop.entity.User;
 import com.example.shop.repository.RefreshTokenRepository;
+import com.example.shop.security.PrincipalCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -24,6 +25,9 @@ class RefreshTokenServiceTest {
     @Mock
     private RefreshTokenRepository refreshTokenRepository;
 
+    @Mock
+    private PrincipalCache principalCache;
+
     @InjectMocks
     private RefreshTokenService refreshTokenService;
 
@@ -141,6 +145,24 @@ class RefreshTokenServiceTest {
 
         // then
         verify(refreshTokenRepository).deleteByToken(tokenValue);
+        verifyNoInteractions(principalCache);
+    }
+
+    @Test
+    void deleteRefreshToken_EvictsUserFromPrincipalCache() {
+        // given
+        String tokenValue = "logout-token";
+        RefreshToken token = new RefreshToken();
+        token.setToken(tokenValue);
+        token.setUser(testUser);
+        when(refreshTokenRepository.findByToken(tokenValue)).thenReturn(Optional.of(token));
+
+        // when
+        refreshTokenService.deleteRefreshToken(tokenValue);
+
+        // then
+        verify(refreshTokenRepository).deleteByToken(tokenValue);
+        verify(principalCache).evict("testuser");
     }
 
     @Test
@@ -0,0 +1,106 @@
+package com.example.shop.service;
+
+import com.example.shop.entity.User;
+import com.example.shop.event.UserChangedEvent;
+import com.example.shop.repository.CartItemRepository;
+import com.example.shop.repository.OrderRepository;
+import com.example.shop.repository.RefreshTokenRepository;
+import com.example.shop.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private CartItemRepository cartItemRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private UserService userService;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User("testuser", "encoded123", "ROLE_USER");
+        testUser.setId(7L);
+    }
+
+    @Test
+    void changeRole_UpdatesRoleAndPublishesEvent() {
+        // given
+        when(userRepository.findById(7L)).thenReturn(Optional.of(testUser));
+        when(userRepository.save(any(User.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // when
+        User result = userService.changeRole(7L, "ADMIN");
+
+        // then
+        assertEquals("ROLE_ADMIN", result.getRole());
+        verify(eventPublisher).publishEvent(argThat((Object e) ->
+                e instanceof UserChangedEvent uce && uce.getUsername().equals("testuser")));
+    }
+
+    @Test
+    void changeRole_UnknownRole_ThrowsException() {
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> userService.changeRole(7L, "SUPERUSER"));
+        assertEquals("Nieznana rola: SUPERUSER", ex.getMessage());
+
+        verifyNoInteractions(userRepository, eventPublisher);
+    }
+
+    @Test
+    void deleteUser_RemovesTokensAndUserAndPublishesEvent() {
+        // given
+        when(userRepository.findById(7L)).thenReturn(Optional.of(testUser));
+        when(orderRepository.existsByUserId(7L)).thenReturn(false);
+        when(cartItemRepository.existsByUserId(7L)).thenReturn(false);
+        when(refreshTokenRepository.findAllByUser(testUser)).thenReturn(List.of());
+
+        // when
+        userService.deleteUser(7L);
+
+        // then
+        verify(refreshTokenRepository).deleteAll(List.of());
+        verify(userRepository).delete(testUser);
+        verify(eventPublisher).publishEvent(any(UserChangedEvent.class));
+    }
+
+    @Test
+    void deleteUser_WithOrders_ThrowsException() {
+        // given
+        when(userRepository.findById(7L)).thenReturn(Optional.of(testUser));
+        when(orderRepository.existsByUserId(7L)).thenReturn(true);
+
+        // when + then
+        assertThrows(RuntimeException.class, () -> userService.deleteUser(7L));
+        verify(userRepository, never()).delete(any(User.class));
+        verifyNoInteractions(eventPublisher);
+    }
+}